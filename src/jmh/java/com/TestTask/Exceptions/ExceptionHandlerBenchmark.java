@@ -0,0 +1,129 @@
+package com.TestTask.Exceptions;
+
+import com.TestTask.Users.UserController;
+import com.TestTask.Users.UserDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+
+    private final CustomResponseEntityExceptionHandler handler = new CustomResponseEntityExceptionHandler(new SimpleMeterRegistry());
+
+    private final WebRequest webRequest = new ServletWebRequest(new MockHttpServletRequest("POST", "/api/users"));
+
+    private ResponseStatusException responseStatusException;
+
+    private EntityNotFoundException entityNotFoundException;
+
+    private MethodArgumentNotValidException methodArgumentNotValidException;
+
+    private MethodArgumentNotValidException severalMethodArgumentsNotValidException;
+
+    private ConstraintViolationException constraintViolationException;
+
+    private InvalidFormatException invalidFormatException;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        responseStatusException = new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "You cannot use this service, because you're under 18");
+        entityNotFoundException = new EntityNotFoundException("Unable to find com.TestTask.Users.UserEntity with id 1");
+
+        UserDTO invalidUser = new UserDTO(null, "not an email", "first", "last", Date.valueOf("1990-01-01"), null, null);
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(invalidUser, "userDTO");
+        bindingResult.addError(new FieldError("userDTO", "email", "not an email", false,
+                new String[]{"Email.userDTO.email", "Email"},
+                new Object[]{new DefaultMessageSourceResolvable(new String[]{"userDTO.email", "email"}, "email")},
+                "must be a well-formed email address"));
+        MethodParameter parameter = new MethodParameter(UserController.class.getMethod("createUser", UserDTO.class), 0);
+        methodArgumentNotValidException = new MethodArgumentNotValidException(parameter, bindingResult);
+
+        BeanPropertyBindingResult severalErrorsResult = new BeanPropertyBindingResult(invalidUser, "userDTO");
+        severalErrorsResult.addError(fieldError("email", "Email", "must be a well-formed email address"));
+        severalErrorsResult.addError(fieldError("firstName", "NotBlank", "must not be blank"));
+        severalErrorsResult.addError(fieldError("firstName", "NotNull", "must not be null"));
+        severalErrorsResult.addError(fieldError("lastName", "NotBlank", "must not be blank"));
+        severalMethodArgumentsNotValidException = new MethodArgumentNotValidException(parameter, severalErrorsResult);
+
+        try (ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory()) {
+            constraintViolationException = new ConstraintViolationException(
+                    validatorFactory.getValidator().validate(invalidUser));
+        }
+
+        try {
+            new ObjectMapper().readValue("{\"birthDate\": \"01-01-1990\"}", UserDTO.class);
+            throw new IllegalStateException("Expected an invalid birth date");
+        } catch (InvalidFormatException e) {
+            invalidFormatException = e;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorDTO> responseStatus() {
+        return handler.handleBadRequestException(responseStatusException, webRequest);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorDTO> entityNotFound() {
+        return handler.handleEntityNotFoundException(entityNotFoundException, webRequest);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> methodArgumentNotValid() {
+        return handler.handleMethodArgumentNotValid(methodArgumentNotValidException, new HttpHeaders(),
+                HttpStatus.BAD_REQUEST, webRequest);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> severalMethodArgumentsNotValid() {
+        return handler.handleMethodArgumentNotValid(severalMethodArgumentsNotValidException, new HttpHeaders(),
+                HttpStatus.BAD_REQUEST, webRequest);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorDTO> constraintViolation() {
+        return handler.handleConstraintViolationException(constraintViolationException, webRequest);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorDTO> invalidFormat() {
+        return handler.handleInvalidFormatException(invalidFormatException, webRequest);
+    }
+
+    private static FieldError fieldError(String field, String code, String message) {
+        return new FieldError("userDTO", field, null, false,
+                new String[]{code + ".userDTO." + field, code},
+                new Object[]{new DefaultMessageSourceResolvable(new String[]{"userDTO." + field, field}, field)},
+                message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.TestTask.Users;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserAgeVerificationBenchmark {
+
+    private final Date birthDate = Date.valueOf("1990-01-01");
+
+    private UserServiceImpl userService;
+
+    @Setup
+    public void setup() {
+        userService = new UserServiceImpl(null, null, null, null, null, null, null, null, null, List.of(),
+                new UserMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(userService, "permittedAge", 18);
+    }
+
+    @Benchmark
+    public Date ageVerification() {
+        userService.ageVerification(birthDate);
+        return birthDate;
+    }
+}
@@ -0,0 +1,26 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.sql.Date;
+
+final class UserBenchmarks {
+
+    private UserBenchmarks() {
+    }
+
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    static UserEntity user(long id) {
+        UserEntity user = new UserEntity("user" + id + "@gmail.com", "first" + id, "last" + id,
+                Date.valueOf("1990-01-01"), "Kyiv, Khreshchatyk " + id, "+38050" + (1000000 + id));
+        user.setId(id);
+        return user;
+    }
+}
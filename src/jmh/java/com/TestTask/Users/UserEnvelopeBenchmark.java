@@ -0,0 +1,43 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserEnvelopeBenchmark {
+
+    @Param({"1", "20", "1000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = UserBenchmarks.objectMapper();
+
+    private List<UserDTO> users;
+
+    @Setup
+    public void setup() {
+        UserMapper userMapper = new UserMapper();
+        users = LongStream.rangeClosed(1, size)
+                .mapToObj(UserBenchmarks::user)
+                .map(userMapper)
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        Map<String, List<UserDTO>> response = new HashMap<>();
+        response.put("data", users);
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,80 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes and decodes a page of users in every {@link UserFormat}. The payload size, raw and
+ * gzipped, is printed once per format during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserFormatBenchmark {
+
+    @Param({"JSON", "CBOR", "SMILE", "PROTOBUF"})
+    private UserFormat format;
+
+    @Param({"10000"})
+    private int size;
+
+    private Page page;
+
+    private ObjectWriter writer;
+
+    private ObjectReader reader;
+
+    private byte[] encoded;
+
+    public record Page(String next, List<UserDTO> data) {}
+
+    @Setup
+    public void setup() throws IOException {
+        UserFormats formats = new UserFormats(UserBenchmarks.objectMapper(),
+                Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+        UserMapper userMapper = new UserMapper();
+        page = new Page(null, LongStream.rangeClosed(1, size)
+                .mapToObj(UserBenchmarks::user)
+                .map(userMapper)
+                .toList());
+        writer = formats.mapper(format).writerFor(Page.class);
+        reader = formats.mapper(format).readerFor(Page.class);
+        if (format == UserFormat.PROTOBUF) {
+            writer = writer.with(formats.protobufSchema("UserPage"));
+            reader = reader.with(formats.protobufSchema("UserPage"));
+        }
+        encoded = writer.writeValueAsBytes(page);
+        System.out.printf("%n%s: %d bytes, %d bytes gzipped%n", format, encoded.length, gzip(encoded).length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public Page decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,57 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.JsonPatchException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserJsonPatchBenchmark {
+
+    private static final String PATCH = "[" +
+            "{\"op\": \"replace\", \"path\": \"/firstName\", \"value\": \"patched\"}, " +
+            "{\"op\": \"replace\", \"path\": \"/birthDate\", \"value\": \"1991-02-03\"}" +
+            "]";
+
+    private final ObjectMapper objectMapper = UserBenchmarks.objectMapper();
+
+    private UserEntity user;
+
+    private JsonPatch jsonPatch;
+
+    private List<UserPatchOperation> operations;
+
+    @Setup
+    public void setup() throws IOException {
+        user = UserBenchmarks.user(1);
+        jsonPatch = objectMapper.readValue(PATCH, JsonPatch.class);
+        operations = objectMapper.readValue(PATCH, new TypeReference<>() {});
+    }
+
+    // The previous partialUpdate path: entity -> tree -> patched tree -> new entity
+    @Benchmark
+    public UserEntity treeApplyAndConvert() throws JsonPatchException, JsonProcessingException {
+        objectMapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        JsonNode patched = jsonPatch.apply(objectMapper.convertValue(user, JsonNode.class));
+        return objectMapper.treeToValue(patched, UserEntity.class);
+    }
+
+    @Benchmark
+    public Set<UserField> compileAndApply() throws JsonProcessingException {
+        return UserPatch.compile(operations, objectMapper).apply(user);
+    }
+}
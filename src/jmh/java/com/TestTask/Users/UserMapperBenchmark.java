@@ -0,0 +1,28 @@
+package com.TestTask.Users;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    private final UserMapper userMapper = new UserMapper();
+
+    private UserEntity user;
+
+    @Setup
+    public void setup() {
+        user = UserBenchmarks.user(1);
+    }
+
+    @Benchmark
+    public UserDTO apply() {
+        return userMapper.apply(user);
+    }
+}
@@ -1,92 +1,122 @@
 package com.TestTask.Exceptions;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
-import java.sql.Timestamp;
-import java.util.Calendar;
+import java.util.List;
 
 @ControllerAdvice
+@Profile("!reactive")
 public class CustomResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
 
+    private static final Logger log = LoggerFactory.getLogger(CustomResponseEntityExceptionHandler.class);
+
+    private static final String PACKAGE_PREFIX = "com.TestTask.Users.";
+
+    private final MeterRegistry meterRegistry;
+
+    public CustomResponseEntityExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
-    protected ResponseEntity<ErrorDTO> handleBadRequestException(RuntimeException ex, WebRequest webRequest) {
-        Timestamp timestamp = Timestamp.from(Calendar.getInstance().toInstant());
-        String[] messageSegments = ex.getMessage().split(" ", 3);
-        int status = Integer.parseInt(messageSegments[0]);
-        String error = messageSegments[1];
-        String message = messageSegments[2].replaceAll("\"", "");
-        String path = webRequest.getDescription(false).replace("uri=", "");
-
-        return ResponseEntity.status(status).body(
-                new ErrorDTO(timestamp, status, error, message, path));
+    protected ResponseEntity<ErrorDTO> handleBadRequestException(ResponseStatusException ex, WebRequest webRequest) {
+        count(ex);
+        ErrorTemplate template = ErrorTemplate.of(ex.getStatusCode());
+        String message = ex.getReason() != null ? ex.getReason() : template.error();
+        return ResponseEntity.status(template.status()).body(
+                template.toErrorDTO(message, path(webRequest), List.of()));
     }
 
     @ExceptionHandler(EntityNotFoundException.class)
     protected ResponseEntity<ErrorDTO> handleEntityNotFoundException(RuntimeException ex, WebRequest webRequest) {
-        Timestamp timestamp = Timestamp.from(Calendar.getInstance().toInstant());
-        int status = HttpStatus.NOT_FOUND.value();
-        String error = HttpStatus.NOT_FOUND.name();
-        String message = ex.getMessage().replace("com.TestTask.Users.", "");
-        String path = webRequest.getDescription(false).replace("uri=", "");
-
-        return ResponseEntity.status(status).body(
-                new ErrorDTO(timestamp, status, error, message, path));
+        count(ex);
+        ErrorTemplate template = ErrorTemplate.NOT_FOUND;
+        String message = ex.getMessage().replace(PACKAGE_PREFIX, "");
+        return ResponseEntity.status(template.status()).body(
+                template.toErrorDTO(message, path(webRequest), List.of()));
     }
 
-    @Override
-    protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex, HttpHeaders headers, HttpStatusCode status, WebRequest webRequest) {
-        Timestamp timestamp = Timestamp.from(Calendar.getInstance().toInstant());
-        int responseStatus = status.value();
-        String error = HttpStatus.valueOf(status.value()).name();
-
-        String[] messageSegments = ex.getFieldError().toString().split("default message \\[", 3);
-        String fieldName = messageSegments[1].split("]")[0];
-        String description = messageSegments[2].split("]")[0];
-        String message = "The " + fieldName + " field " + description;
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    protected ResponseEntity<ErrorDTO> handleOptimisticLockingFailureException(RuntimeException ex, WebRequest webRequest) {
+        count(ex);
+        ErrorTemplate template = ErrorTemplate.PRECONDITION_FAILED;
+        return ResponseEntity.status(template.status()).body(
+                template.toErrorDTO("The user has been modified concurrently", path(webRequest), List.of()));
+    }
 
-        String path = webRequest.getDescription(false).replace("uri=", "");
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    protected ResponseEntity<ErrorDTO> handleDataIntegrityViolationException(RuntimeException ex, WebRequest webRequest) {
+        count(ex);
+        if (!DataIntegrityViolations.isUniqueEmail(ex)) {
+            // Not caused by the client's input as far as we know, so log it as a failure of ours
+            log.error("Data integrity violation on {}", path(webRequest), ex);
+            ErrorTemplate template = ErrorTemplate.INTERNAL_SERVER_ERROR;
+            return ResponseEntity.status(template.status()).body(
+                    template.toErrorDTO(FieldErrors.DATA_INTEGRITY_MESSAGE, path(webRequest), List.of()));
+        }
+        ErrorTemplate template = ErrorTemplate.CONFLICT;
+        return ResponseEntity.status(template.status()).body(
+                template.toErrorDTO(FieldErrors.UNIQUE_EMAIL_MESSAGE, path(webRequest), List.of()));
+    }
 
-        return ResponseEntity.status(responseStatus).body(
-                new ErrorDTO(timestamp, responseStatus, error, message, path));
+    @Override
+    protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex, HttpHeaders headers, HttpStatusCode status, WebRequest webRequest) {
+        count(ex);
+        ErrorTemplate template = ErrorTemplate.of(status);
+        return ResponseEntity.status(template.status()).body(
+                FieldErrors.toErrorDTO(template, ex.getBindingResult(), path(webRequest)));
     }
 
     @ExceptionHandler(ConstraintViolationException.class)
     protected ResponseEntity<ErrorDTO> handleConstraintViolationException(ConstraintViolationException ex, WebRequest webRequest) {
-        Timestamp timestamp = Timestamp.from(Calendar.getInstance().toInstant());
-        int status = HttpStatus.BAD_REQUEST.value();
-        String error = HttpStatus.BAD_REQUEST.name();
-
-        String fieldName = ex.getConstraintViolations().toString().split("propertyPath=", 2)[1].split(",", 2)[0];
-        String description = ex.getConstraintViolations().toString().split("interpolatedMessage='", 2)[1].split("'", 2)[0];
-        String message = "The " + fieldName + " field " + description;
-
-        String path = webRequest.getDescription(false).replace("uri=", "");
-        return ResponseEntity.status(status).body(
-                new ErrorDTO(timestamp, status, error, message, path));
+        count(ex);
+        return ResponseEntity.status(ErrorTemplate.BAD_REQUEST.status()).body(
+                FieldErrors.toErrorDTO(ex.getConstraintViolations(), ex.getMessage(), path(webRequest)));
     }
 
     @ExceptionHandler(InvalidFormatException.class)
     protected ResponseEntity<ErrorDTO> handleInvalidFormatException(InvalidFormatException ex, WebRequest webRequest) {
-        Timestamp timestamp = Timestamp.from(Calendar.getInstance().toInstant());
-        int status = HttpStatus.BAD_REQUEST.value();
-        String error = HttpStatus.BAD_REQUEST.name();
-        String message = ex.getMessage().split("\\(error: ", 2)[1].split(" at \\[")[0];
-        String path = webRequest.getDescription(false).replace("uri=", "");
-
-        return ResponseEntity.status(status).body(
-                new ErrorDTO(timestamp, status, error, message, path));
+        count(ex);
+        return ResponseEntity.status(ErrorTemplate.BAD_REQUEST.status()).body(
+                FieldErrors.toErrorDTO(ex, path(webRequest)));
     }
-}
 
+    @Override
+    protected ResponseEntity<Object> handleExceptionInternal(Exception ex, Object body, HttpHeaders headers, HttpStatusCode statusCode, WebRequest webRequest) {
+        count(ex);
+        return super.handleExceptionInternal(ex, body, headers, statusCode, webRequest);
+    }
+
+    private void count(Exception ex) {
+        meterRegistry.counter("users.exceptions", "exception", ex.getClass().getSimpleName()).increment();
+    }
+
+    private static String path(WebRequest webRequest) {
+        if (webRequest instanceof NativeWebRequest nativeWebRequest) {
+            HttpServletRequest request = nativeWebRequest.getNativeRequest(HttpServletRequest.class);
+            if (request != null) {
+                return request.getRequestURI();
+            }
+        }
+        return webRequest.getDescription(false).replace("uri=", "");
+    }
+}
@@ -0,0 +1,35 @@
+package com.TestTask.Exceptions;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.util.Locale;
+
+/**
+ * Tells unique email violations apart from other integrity violations, such as missing values or
+ * tombstone key collisions, which must not be reported as a taken email.
+ */
+public final class DataIntegrityViolations {
+
+    // Matches uk_users_email and the Postgres uk_users_email_lower index
+    private static final String UNIQUE_EMAIL = "uk_users_email";
+
+    private DataIntegrityViolations() {
+    }
+
+    /**
+     * Looks for the constraint name Hibernate extracted, falling back to the driver messages, which
+     * name the violated constraint on H2, Postgres and R2DBC alike.
+     */
+    public static boolean isUniqueEmail(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(UNIQUE_EMAIL)) {
+                return true;
+            }
+            if (cause.getMessage() != null && cause.getMessage().toLowerCase(Locale.ROOT).contains(UNIQUE_EMAIL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
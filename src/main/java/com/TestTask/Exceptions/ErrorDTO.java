@@ -1,10 +1,19 @@
 package com.TestTask.Exceptions;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.sql.Timestamp;
+import java.util.List;
 
 public record ErrorDTO(
         Timestamp timestamp,
         int status,
         String error,
         String message,
-        String path) {}
+        String path,
+        @JsonInclude(JsonInclude.Include.NON_EMPTY) List<FieldErrorDTO> errors) {
+
+    public ErrorDTO(Timestamp timestamp, int status, String error, String message, String path) {
+        this(timestamp, status, error, message, path, List.of());
+    }
+}
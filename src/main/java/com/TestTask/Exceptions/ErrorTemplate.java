@@ -0,0 +1,34 @@
+package com.TestTask.Exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+record ErrorTemplate(int status, String error) {
+
+    private static final ErrorTemplate[] TEMPLATES = new ErrorTemplate[600];
+
+    static {
+        for (HttpStatus status : HttpStatus.values()) {
+            TEMPLATES[status.value()] = new ErrorTemplate(status.value(), status.name());
+        }
+    }
+
+    static final ErrorTemplate BAD_REQUEST = of(HttpStatus.BAD_REQUEST);
+    static final ErrorTemplate NOT_FOUND = of(HttpStatus.NOT_FOUND);
+    static final ErrorTemplate CONFLICT = of(HttpStatus.CONFLICT);
+    static final ErrorTemplate PRECONDITION_FAILED = of(HttpStatus.PRECONDITION_FAILED);
+    static final ErrorTemplate INTERNAL_SERVER_ERROR = of(HttpStatus.INTERNAL_SERVER_ERROR);
+
+    static ErrorTemplate of(HttpStatusCode statusCode) {
+        int status = statusCode.value();
+        ErrorTemplate template = status < TEMPLATES.length ? TEMPLATES[status] : null;
+        return template != null ? template : new ErrorTemplate(status, String.valueOf(status));
+    }
+
+    ErrorDTO toErrorDTO(String message, String path, List<FieldErrorDTO> errors) {
+        return new ErrorDTO(new Timestamp(System.currentTimeMillis()), status, error, message, path, errors);
+    }
+}
@@ -0,0 +1,5 @@
+package com.TestTask.Exceptions;
+
+public record FieldErrorDTO(
+        String field,
+        String message) {}
@@ -0,0 +1,96 @@
+package com.TestTask.Exceptions;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Path;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Field error extraction shared by the servlet and reactive exception handlers, so both stacks
+ * report the same messages.
+ */
+final class FieldErrors {
+
+    static final String UNIQUE_EMAIL_MESSAGE = "The email field must be unique";
+
+    static final String DATA_INTEGRITY_MESSAGE = "The request violates a data integrity constraint";
+
+    private static final String NOT_NULL = "NotNull";
+
+    // NotNull first, so a missing value is reported as missing rather than blank
+    private static final Comparator<FieldError> FIELD_ERROR_ORDER = Comparator
+            .comparing(FieldError::getField)
+            .thenComparing(error -> !NOT_NULL.equals(error.getCode()))
+            .thenComparing(FieldError::getDefaultMessage, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private FieldErrors() {
+    }
+
+    static ErrorDTO toErrorDTO(ErrorTemplate template, Errors bindingResult, String path) {
+        List<FieldError> fieldErrors = new ArrayList<>(bindingResult.getFieldErrors());
+        fieldErrors.sort(FIELD_ERROR_ORDER);
+
+        List<FieldErrorDTO> errors = new ArrayList<>(fieldErrors.size());
+        for (FieldError fieldError : fieldErrors) {
+            errors.add(new FieldErrorDTO(fieldError.getField(), fieldError.getDefaultMessage()));
+        }
+        String message;
+        if (!errors.isEmpty()) {
+            message = message(errors.get(0));
+        } else {
+            ObjectError globalError = bindingResult.getGlobalError();
+            message = globalError != null ? globalError.getDefaultMessage() : template.error();
+        }
+        return template.toErrorDTO(message, path, errors);
+    }
+
+    static ErrorDTO toErrorDTO(Set<? extends ConstraintViolation<?>> violations, String defaultMessage, String path) {
+        List<FieldErrorDTO> errors = new ArrayList<>(violations.size());
+        for (ConstraintViolation<?> violation : violations) {
+            errors.add(new FieldErrorDTO(field(violation.getPropertyPath()), violation.getMessage()));
+        }
+        errors.sort(Comparator.comparing(FieldErrorDTO::field).thenComparing(FieldErrorDTO::message));
+        String message = errors.isEmpty() ? defaultMessage : message(errors.get(0));
+        return ErrorTemplate.BAD_REQUEST.toErrorDTO(message, path, errors);
+    }
+
+    static ErrorDTO toErrorDTO(InvalidFormatException ex, String path) {
+        FieldErrorDTO error = new FieldErrorDTO(field(ex.getPath()), "has invalid value '" + ex.getValue() + "'");
+        return ErrorTemplate.BAD_REQUEST.toErrorDTO(message(error), path, List.of(error));
+    }
+
+    private static String message(FieldErrorDTO error) {
+        return "The " + error.field() + " field " + error.message();
+    }
+
+    private static String field(Path propertyPath) {
+        String field = null;
+        for (Path.Node node : propertyPath) {
+            field = node.getName();
+        }
+        return field;
+    }
+
+    private static String field(List<JsonMappingException.Reference> references) {
+        StringBuilder field = new StringBuilder();
+        for (JsonMappingException.Reference reference : references) {
+            if (reference.getFieldName() != null) {
+                if (!field.isEmpty()) {
+                    field.append('.');
+                }
+                field.append(reference.getFieldName());
+            } else if (reference.getIndex() >= 0) {
+                field.append('[').append(reference.getIndex()).append(']');
+            }
+        }
+        return field.toString();
+    }
+}
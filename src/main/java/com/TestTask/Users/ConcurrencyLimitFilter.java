@@ -0,0 +1,80 @@
+package com.TestTask.Users;
+
+import com.TestTask.Exceptions.ErrorDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of requests handled at once. With virtual threads Tomcat no longer bounds
+ * concurrency through its thread pool, so without this every request would queue on the
+ * connection pool. Requests that cannot get a permit within {@code user.concurrency.acquireTimeout}
+ * are answered with 503.
+ */
+@Component
+@Profile("!reactive")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+
+    private final long acquireTimeoutNanos;
+
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(@Value("${user.concurrency.maxRequests}") int maxRequests,
+                                  @Value("${user.concurrency.acquireTimeout}") Duration acquireTimeout,
+                                  ObjectMapper objectMapper) {
+        this.permits = new Semaphore(maxRequests, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            reject(request, response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorDTO(new Timestamp(System.currentTimeMillis()),
+                status.value(), status.name(), "Too many concurrent requests", request.getRequestURI()));
+    }
+}
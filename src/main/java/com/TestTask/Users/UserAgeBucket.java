@@ -0,0 +1,6 @@
+package com.TestTask.Users;
+
+/**
+ * Users aged at least {@code from} and under {@code to} years.
+ */
+public record UserAgeBucket(int from, int to, long count) {}
@@ -0,0 +1,9 @@
+package com.TestTask.Users;
+
+import java.util.List;
+
+/**
+ * Age histogram. The first bucket holds everyone under {@code permittedAge}, the rest start at it
+ * and are {@code bucketSize} years wide, up to the bucket of the oldest user.
+ */
+public record UserAgeStats(int permittedAge, int bucketSize, List<UserAgeBucket> buckets) {}
@@ -0,0 +1,8 @@
+package com.TestTask.Users;
+
+import java.util.List;
+
+public interface UserBatchRepository {
+
+    List<UserEntity> insertAll(List<UserEntity> users);
+}
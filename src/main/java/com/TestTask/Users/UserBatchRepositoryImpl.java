@@ -0,0 +1,26 @@
+package com.TestTask.Users;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public class UserBatchRepositoryImpl implements UserBatchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Persists the users in one transaction so Hibernate can group the inserts into JDBC batches,
+     * then clears the persistence context so a long import does not accumulate managed entities.
+     */
+    @Override
+    @Transactional
+    public List<UserEntity> insertAll(List<UserEntity> users) {
+        users.forEach(entityManager::persist);
+        entityManager.flush();
+        entityManager.clear();
+        return users;
+    }
+}
@@ -0,0 +1,5 @@
+package com.TestTask.Users;
+
+import java.sql.Date;
+
+public record UserBirthDate(Long id, Date birthDate) {}
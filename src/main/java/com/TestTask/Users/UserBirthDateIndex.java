@@ -0,0 +1,290 @@
+package com.TestTask.Users;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-process index of birth date to user id, held in primitive arrays: {@code keys} packs
+ * (epoch day, id) into one sorted long so range queries are a binary search and a scan, and
+ * {@code ids}/{@code days} are sorted by id so writes can find the previous birth date of a user.
+ * Enabled with {@code user.birthDateIndex.enabled}; rebuilt from a streaming scan on startup.
+ */
+@Component
+@Profile("!reactive")
+public class UserBirthDateIndex implements UserChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(UserBirthDateIndex.class);
+
+    private static final int ID_BITS = 40;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    private static final int DAY_BITS = 23;
+    private static final long DAY_MASK = (1L << DAY_BITS) - 1;
+    private static final int DAY_OFFSET = 1 << (DAY_BITS - 1);
+
+    private final UserRepository userRepository;
+
+    private final boolean enabled;
+
+    private final Executor executor;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private long[] keys = new long[0];
+
+    private long[] ids = new long[0];
+
+    private int[] days = new int[0];
+
+    private int size;
+
+    private List<Runnable> pendingWrites;
+
+    private volatile boolean ready;
+
+    private volatile long lastRebuildMillis;
+
+    public UserBirthDateIndex(UserRepository userRepository,
+                              @Value("${user.birthDateIndex.enabled}") boolean enabled,
+                              @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.executor = executor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (enabled) {
+            CompletableFuture.runAsync(this::rebuild, executor);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns up to {@code limit} entries with a birth date in [start, end], ordered by (birth date, id)
+     * and starting after the given cursor.
+     */
+    public List<UserCursor> findEntries(Date start, Date end, UserCursor after, int limit) {
+        long from = after == null ? key(epochDay(start), 0) : key(epochDay(after.birthDate()), after.id()) + 1;
+        long to = key(epochDay(end), ID_MASK);
+        List<UserCursor> result = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            int i = Arrays.binarySearch(keys, 0, size, from);
+            for (i = i < 0 ? -i - 1 : i; i < size && keys[i] <= to && result.size() < limit; i++) {
+                long day = (keys[i] >>> ID_BITS) - DAY_OFFSET;
+                result.add(new UserCursor(Date.valueOf(LocalDate.ofEpochDay(day)), keys[i] & ID_MASK));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    public void rebuild() {
+        rebuildLock.lock();
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long started = System.nanoTime();
+        try {
+            long[][] scanned = {new long[1024]};
+            int[] count = {0};
+            userRepository.forEachBirthDate(user -> {
+                if (count[0] == scanned[0].length) {
+                    scanned[0] = Arrays.copyOf(scanned[0], count[0] * 2);
+                }
+                scanned[0][count[0]++] = key(epochDay(user.birthDate()), user.id());
+            });
+            int n = count[0];
+            long[] newKeys = scanned[0];
+            Arrays.sort(newKeys, 0, n);
+
+            long[] byId = new long[n];
+            for (int i = 0; i < n; i++) {
+                byId[i] = (newKeys[i] & ID_MASK) << DAY_BITS | newKeys[i] >>> ID_BITS;
+            }
+            Arrays.sort(byId);
+            long[] newIds = new long[newKeys.length];
+            int[] newDays = new int[newKeys.length];
+            for (int i = 0; i < n; i++) {
+                newIds[i] = byId[i] >>> DAY_BITS;
+                newDays[i] = (int) (byId[i] & DAY_MASK) - DAY_OFFSET;
+            }
+
+            lock.writeLock().lock();
+            try {
+                keys = newKeys;
+                ids = newIds;
+                days = newDays;
+                size = n;
+                pendingWrites.forEach(Runnable::run);
+                ready = true;
+            } finally {
+                pendingWrites = null;
+                lock.writeLock().unlock();
+            }
+            lastRebuildMillis = (System.nanoTime() - started) / 1_000_000;
+            log.info("Rebuilt birth date index with {} users in {} ms", n, lastRebuildMillis);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Failed to rebuild birth date index", e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public UserBirthDateIndexStats stats() {
+        lock.readLock().lock();
+        try {
+            long memoryBytes = (long) keys.length * Long.BYTES + (long) ids.length * Long.BYTES
+                    + (long) days.length * Integer.BYTES;
+            return new UserBirthDateIndexStats(enabled, ready, size, memoryBytes, lastRebuildMillis);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onCreated(VersionedUser user) {
+        onUpdated(user);
+    }
+
+    @Override
+    public void onUpdated(VersionedUser user) {
+        write(() -> put(user.user().id(), epochDay(user.user().birthDate())));
+    }
+
+    @Override
+    public void onDeleted(Long id) {
+        write(() -> remove(id));
+    }
+
+    @Override
+    public void onBulkChanged(Collection<Long> changedIds) {
+        if (!enabled) {
+            return;
+        }
+        if (changedIds == null) {
+            CompletableFuture.runAsync(this::rebuild, executor);
+            return;
+        }
+        Map<Long, Date> birthDates = userRepository.findAllBirthDatesByIdIn(changedIds).stream()
+                .collect(Collectors.toMap(UserBirthDate::id, UserBirthDate::birthDate));
+        write(() -> changedIds.forEach(id -> {
+            Date birthDate = birthDates.get(id);
+            if (birthDate == null) {
+                remove(id);
+            } else {
+                put(id, epochDay(birthDate));
+            }
+        }));
+    }
+
+    private void write(Runnable write) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+            write.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(long id, int day) {
+        int i = Arrays.binarySearch(ids, 0, size, id);
+        if (i >= 0) {
+            if (days[i] == day) {
+                return;
+            }
+            removeKey(key(days[i], id));
+            days[i] = day;
+        } else {
+            ensureCapacity(size + 1);
+            i = -i - 1;
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            System.arraycopy(days, i, days, i + 1, size - i);
+            ids[i] = id;
+            days[i] = day;
+            size++;
+        }
+        long key = key(day, id);
+        int k = -Arrays.binarySearch(keys, 0, size - 1, key) - 1;
+        System.arraycopy(keys, k, keys, k + 1, size - 1 - k);
+        keys[k] = key;
+    }
+
+    private void remove(long id) {
+        int i = Arrays.binarySearch(ids, 0, size, id);
+        if (i < 0) {
+            return;
+        }
+        removeKey(key(days[i], id));
+        System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+        System.arraycopy(days, i + 1, days, i, size - i - 1);
+        size--;
+    }
+
+    /**
+     * Removes a key from {@code keys}, leaving {@code size - 1} keys in it; the caller keeps
+     * {@code size} consistent.
+     */
+    private void removeKey(long key) {
+        int k = Arrays.binarySearch(keys, 0, size, key);
+        System.arraycopy(keys, k + 1, keys, k, size - k - 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            int newCapacity = Math.max(capacity, ids.length * 2);
+            keys = Arrays.copyOf(keys, newCapacity);
+            ids = Arrays.copyOf(ids, newCapacity);
+            days = Arrays.copyOf(days, newCapacity);
+        }
+    }
+
+    private static int epochDay(Date date) {
+        return (int) date.toLocalDate().toEpochDay();
+    }
+
+    private static long key(int epochDay, long id) {
+        return (long) (epochDay + DAY_OFFSET) << ID_BITS | id;
+    }
+}
@@ -0,0 +1,8 @@
+package com.TestTask.Users;
+
+public record UserBirthDateIndexStats(
+        boolean enabled,
+        boolean ready,
+        int size,
+        long memoryBytes,
+        long lastRebuildMillis) {}
@@ -0,0 +1,6 @@
+package com.TestTask.Users;
+
+/**
+ * Users born in {@code year}, split by whether their birthday has already come this year.
+ */
+public record UserBirthYearCount(Integer year, Boolean birthdayPassed, Long count) {}
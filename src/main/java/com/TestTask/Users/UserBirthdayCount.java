@@ -0,0 +1,3 @@
+package com.TestTask.Users;
+
+public record UserBirthdayCount(Integer month, Integer day, Long count) {}
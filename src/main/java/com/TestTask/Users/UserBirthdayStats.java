@@ -0,0 +1,7 @@
+package com.TestTask.Users;
+
+/**
+ * Birthdays per month, January first, and per day of the year. Days are numbered as in a leap
+ * year, so February 29 is day 60 and every birthday keeps the same slot.
+ */
+public record UserBirthdayStats(long[] months, long[] daysOfYear) {}
@@ -0,0 +1,14 @@
+package com.TestTask.Users;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.Map;
+
+public interface UserBulkRepository {
+
+    int deleteOneById(Long id);
+
+    int deleteAllMatching(Collection<Long> ids, Date start, Date end);
+
+    int updateAllMatching(Map<UserField, Object> values, Collection<Long> ids, Date start, Date end);
+}
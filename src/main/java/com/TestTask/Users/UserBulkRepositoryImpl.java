@@ -0,0 +1,110 @@
+package com.TestTask.Users;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class UserBulkRepositoryImpl implements UserBulkRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Deletes the user and leaves a tombstone for the change feed in the same transaction.
+     */
+    @Override
+    @Transactional
+    public int deleteOneById(Long id) {
+        int deleted = entityManager.createQuery("delete from UserEntity u where u.id = :id")
+                .setParameter("id", id)
+                .executeUpdate();
+        if (deleted > 0) {
+            entityManager.persist(new UserTombstone(id, Instant.now()));
+        }
+        return deleted;
+    }
+
+    /**
+     * Marks the matching users, leaves tombstones for the marked ones and deletes exactly the
+     * tombstoned ones, so a user moved into range meanwhile is neither deleted without a tombstone
+     * nor tombstoned without being deleted. Marking locks the rows first: a concurrent single delete
+     * either commits before and is skipped here, or waits and then finds the user gone, so neither
+     * collides on the tombstone nor deadlocks. The tombstones are written by a single insert-select,
+     * as criteria queries cannot express one.
+     */
+    @Override
+    @Transactional
+    public int deleteAllMatching(Collection<Long> ids, Date start, Date end) {
+        // Truncated to the columns' precision, as the marker is matched by equality
+        Instant deletedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<UserEntity> mark = builder.createCriteriaUpdate(UserEntity.class);
+        Root<UserEntity> user = mark.from(UserEntity.class);
+        mark.set(user.<Instant>get("changedAt"), deletedAt);
+        mark.where(matching(builder, user, ids, start, end));
+        if (entityManager.createQuery(mark).executeUpdate() == 0) {
+            return 0;
+        }
+
+        List<String> predicates = new ArrayList<>(3);
+        predicates.add("u.changedAt = :deletedAt");
+        if (ids != null) {
+            predicates.add("u.id in :ids");
+        }
+        if (start != null && end != null) {
+            predicates.add("u.birthDate between :start and :end");
+        }
+        Query tombstones = entityManager.createQuery("insert into UserTombstone (id, deletedAt) " +
+                        "select u.id, :deletedAt from UserEntity u where " + String.join(" and ", predicates))
+                .setParameter("deletedAt", deletedAt);
+        if (ids != null) {
+            tombstones.setParameter("ids", ids);
+        }
+        if (start != null && end != null) {
+            tombstones.setParameter("start", start).setParameter("end", end);
+        }
+        tombstones.executeUpdate();
+
+        return entityManager.createQuery("delete from UserEntity u " +
+                        "where u.id in (select t.id from UserTombstone t where t.deletedAt = :deletedAt)")
+                .setParameter("deletedAt", deletedAt)
+                .executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public int updateAllMatching(Map<UserField, Object> values, Collection<Long> ids, Date start, Date end) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<UserEntity> update = builder.createCriteriaUpdate(UserEntity.class);
+        Root<UserEntity> user = update.from(UserEntity.class);
+        values.forEach((field, value) -> update.set(field.fieldName(), value));
+        update.set(user.<Long>get("version"), builder.sum(user.get("version"), 1L));
+        update.set(user.<Instant>get("changedAt"), Instant.now());
+        update.where(matching(builder, user, ids, start, end));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    private Predicate[] matching(CriteriaBuilder builder, Root<UserEntity> user, Collection<Long> ids, Date start, Date end) {
+        List<Predicate> predicates = new ArrayList<>(2);
+        if (ids != null) {
+            predicates.add(user.get("id").in(ids));
+        }
+        if (start != null && end != null) {
+            predicates.add(builder.between(user.get("birthDate"), start, end));
+        }
+        return predicates.toArray(Predicate[]::new);
+    }
+}
@@ -0,0 +1,102 @@
+package com.TestTask.Users;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Bounded read-through cache of immutable {@link VersionedUser}s keyed by id. When
+ * {@code user.cache.refreshAfterWrite} is positive, entries older than it are still served while
+ * a reload runs in the background (stale-while-revalidate).
+ * <p>
+ * Loads run on the application task executor rather than inside the cache's map compute, which
+ * holds a monitor and would pin a virtual thread for the whole JDBC round trip.
+ */
+@Component
+@Profile("!reactive")
+public class UserCache implements UserChangeListener {
+
+    private final AsyncLoadingCache<Long, VersionedUser> asyncCache;
+
+    private final LoadingCache<Long, VersionedUser> cache;
+
+    public UserCache(UserRepository userRepository,
+                     @Value("${user.cache.maximumSize}") long maximumSize,
+                     @Value("${user.cache.expireAfterWrite}") Duration expireAfterWrite,
+                     @Value("${user.cache.refreshAfterWrite}") Duration refreshAfterWrite,
+                     @Qualifier("applicationTaskExecutor") Executor executor) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .executor(executor)
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats();
+        if (!refreshAfterWrite.isZero() && !refreshAfterWrite.isNegative()) {
+            builder.refreshAfterWrite(refreshAfterWrite);
+        }
+        this.asyncCache = builder.buildAsync(id -> userRepository.findVersionedById(id).orElse(null));
+        this.cache = asyncCache.synchronous();
+    }
+
+    public VersionedUser get(Long id) {
+        try {
+            return asyncCache.get(id).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the cached user, or {@code null} when it is absent or still loading.
+     */
+    public VersionedUser getIfPresent(Long id) {
+        CompletableFuture<VersionedUser> user = asyncCache.getIfPresent(id);
+        return user != null && user.isDone() && !user.isCompletedExceptionally() ? user.join() : null;
+    }
+
+    @Override
+    public void onUpdated(VersionedUser user) {
+        if (user.version() == null) {
+            cache.invalidate(user.user().id());
+        } else {
+            cache.put(user.user().id(), user);
+        }
+    }
+
+    @Override
+    public void onDeleted(Long id) {
+        cache.invalidate(id);
+    }
+
+    @Override
+    public void onBulkChanged(Collection<Long> ids) {
+        if (ids == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidateAll(ids);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public UserCacheStats stats() {
+        CacheStats stats = cache.stats();
+        return new UserCacheStats(cache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount(), stats.loadFailureCount(), stats.averageLoadPenalty() / 1_000_000d);
+    }
+}
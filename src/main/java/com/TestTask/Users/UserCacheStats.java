@@ -0,0 +1,10 @@
+package com.TestTask.Users;
+
+public record UserCacheStats(
+        long size,
+        long hitCount,
+        long missCount,
+        double hitRate,
+        long evictionCount,
+        long loadFailureCount,
+        double averageLoadPenaltyMillis) {}
@@ -0,0 +1,26 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.sql.Date;
+import java.time.Instant;
+
+/**
+ * An entry of the change feed: the current state of a created or updated user, or the id of a
+ * deleted one.
+ */
+public record UserChange(
+        Long id,
+        Instant changedAt,
+        boolean deleted,
+        @JsonInclude(JsonInclude.Include.NON_NULL) UserDTO user) {
+
+    public UserChange(Long id, Instant changedAt, String email, String firstName, String lastName, Date birthDate,
+                      String address, String phoneNumber) {
+        this(id, changedAt, false, new UserDTO(id, email, firstName, lastName, birthDate, address, phoneNumber));
+    }
+
+    public UserChange(Long id, Instant deletedAt) {
+        this(id, deletedAt, true, null);
+    }
+}
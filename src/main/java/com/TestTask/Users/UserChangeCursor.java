@@ -0,0 +1,40 @@
+package com.TestTask.Users;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position in the change feed, which is ordered by change time and then by id.
+ */
+public record UserChangeCursor(Instant changedAt, Long id) {
+
+    public static final UserChangeCursor START = new UserChangeCursor(Instant.EPOCH, 0L);
+
+    private static final String SEPARATOR = ":";
+
+    public static UserChangeCursor of(UserChange change) {
+        return new UserChangeCursor(change.changedAt(), change.id());
+    }
+
+    public static UserChangeCursor decode(String cursor) {
+        try {
+            String[] segments = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR);
+            if (segments.length == 3) {
+                return new UserChangeCursor(Instant.ofEpochSecond(Long.parseLong(segments[0]), Long.parseLong(segments[1])),
+                        Long.parseLong(segments[2]));
+            }
+        } catch (IllegalArgumentException | DateTimeException ignored) {
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor " + cursor);
+    }
+
+    public String encode() {
+        String value = changedAt.getEpochSecond() + SEPARATOR + changedAt.getNano() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
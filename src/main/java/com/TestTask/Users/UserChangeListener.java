@@ -0,0 +1,26 @@
+package com.TestTask.Users;
+
+import java.util.Collection;
+
+/**
+ * Notified by {@link UserServiceImpl} after every write, so in-process views of the users table
+ * stay in sync with it.
+ */
+public interface UserChangeListener {
+
+    default void onCreated(VersionedUser user) {
+    }
+
+    default void onUpdated(VersionedUser user) {
+    }
+
+    default void onDeleted(Long id) {
+    }
+
+    /**
+     * Called after a set-based write. {@code ids} holds the users that may have been updated or
+     * deleted, or is {@code null} when the affected users are not known.
+     */
+    default void onBulkChanged(Collection<Long> ids) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.TestTask.Users;
+
+import java.util.List;
+
+/**
+ * A page of the change feed. {@code next} is always set, so it can be stored and passed back as
+ * {@code since} on the next sync; a page shorter than the limit means the feed is caught up.
+ */
+public record UserChangePage(String next, List<UserChange> data) {}
@@ -1,84 +1,281 @@
 package com.TestTask.Users;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.github.fge.jsonpatch.JsonPatch;
-import com.github.fge.jsonpatch.JsonPatchException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.sql.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/users")
 public class UserController {
 
     public static final String URI_USERS_ID = "/{id}";
+    public static final String URI_USERS_EXPORT = "/export";
+    public static final String URI_USERS_SEARCH = "/search";
+    public static final String URI_USERS_CHANGES = "/changes";
+    public static final String URI_USERS_STATS_AGES = "/stats/ages";
+    public static final String URI_USERS_STATS_BIRTHDAYS = "/stats/birthdays";
+    public static final String URI_USERS_STATS_COUNT = "/stats/count";
+    public static final String URI_USERS_BATCH = "/batch";
+    public static final String URI_USERS_CACHE = "/cache";
+    public static final String URI_USERS_BIRTH_DATE_INDEX = "/birth-date-index";
+    public static final String URI_USERS_EMAIL_FILTER = "/email-filter";
+    public static final String URI_USERS_IMPORTS = "/imports";
+    public static final String URI_USERS_IMPORTS_ID = "/imports/{id}";
+    public static final String URI_USERS_IMPORTS_ERRORS = "/imports/{id}/errors";
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String TEXT_CSV_VALUE = "text/csv";
 
     private final UserService userService;
 
     private final UserMapper userMapper;
 
-    public UserController(UserService userService, UserMapper userMapper) {
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter userWriter;
+
+    private final UserEnvelopeWriter envelopeWriter;
+
+    private final UserImporter userImporter;
+
+    public UserController(UserService userService, UserMapper userMapper, ObjectMapper objectMapper,
+                          UserImporter userImporter, UserFormats formats) {
         this.userService = userService;
+        this.userImporter = userImporter;
         this.userMapper = userMapper;
+        this.objectMapper = objectMapper;
+        this.userWriter = objectMapper.writerFor(UserDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.envelopeWriter = new UserEnvelopeWriter(formats);
     }
 
     @GetMapping
-    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) Date start, @RequestParam(required = false) Date end) {
-        Map<String, List<UserDTO>> response = new HashMap<>();
-        response.put("data", userService.getAll(start, end)
-                .stream()
-                .map(userMapper)
-                .toList());
-        return ResponseEntity.ok(response);
+    public void getAllUsers(@RequestParam(required = false) Date start, @RequestParam(required = false) Date end,
+                            @RequestParam(required = false) String after, @RequestParam(required = false) Integer limit,
+                            @RequestParam(required = false) List<String> fields,
+                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                            HttpServletResponse response) throws IOException {
+        Set<UserField> selected = UserField.of(fields);
+        UserFormat format = UserFormat.negotiate(accept);
+        envelopeWriter.writePage(response, format, userService.getAll(start, end, after, limit, selected), selected);
+    }
+
+    @GetMapping(URI_USERS_SEARCH)
+    public void searchUsers(@RequestParam String q, @RequestParam(required = false) String after,
+                            @RequestParam(required = false) Integer limit,
+                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                            HttpServletResponse response) throws IOException {
+        UserFormat format = UserFormat.negotiate(accept);
+        envelopeWriter.writePage(response, format, userService.search(q, after, limit));
+    }
+
+    @GetMapping(URI_USERS_CHANGES)
+    public ResponseEntity<UserChangePage> getChanges(@RequestParam(required = false) String since,
+                                                     @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(userService.getChanges(since, limit));
+    }
+
+    @GetMapping(URI_USERS_STATS_AGES)
+    public ResponseEntity<UserResponse<UserAgeStats>> getAgeStats(@RequestParam(required = false) Integer bucketSize) {
+        return ResponseEntity.ok(new UserResponse<>(userService.getAgeStats(bucketSize)));
+    }
+
+    @GetMapping(URI_USERS_STATS_BIRTHDAYS)
+    public ResponseEntity<UserResponse<UserBirthdayStats>> getBirthdayStats() {
+        return ResponseEntity.ok(new UserResponse<>(userService.getBirthdayStats()));
+    }
+
+    @GetMapping(URI_USERS_STATS_COUNT)
+    public ResponseEntity<UserResponse<UserCount>> countUsers(@RequestParam(required = false) Date start,
+                                                              @RequestParam(required = false) Date end) {
+        return ResponseEntity.ok(new UserResponse<>(userService.count(start, end)));
+    }
+
+    @GetMapping(URI_USERS_EXPORT)
+    public void exportUsers(@RequestParam(required = false) Date start, @RequestParam(required = false) Date end,
+                            HttpServletResponse response) throws IOException {
+        UserNdjsonWriter writer = new UserNdjsonWriter(response, objectMapper, userWriter);
+        userService.export(start, end, writer);
+        writer.close();
     }
 
     @GetMapping(URI_USERS_ID)
-    public ResponseEntity<?> getUserById(@PathVariable Long id) {
-        Map<String, UserDTO> response = new HashMap<>();
-        UserEntity user = userService.getOneById(id);
-        response.put("data", userMapper.apply(user));
-        return ResponseEntity.ok(response);
+    public ResponseEntity<UserResponse<UserDTO>> getUserById(@PathVariable Long id,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            long version = userService.getVersionById(id);
+            if (UserETag.matches(ifNoneMatch, version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(UserETag.of(version)).build();
+            }
+        }
+        VersionedUser user = userService.getOneVersionedById(id);
+        return eTag(ResponseEntity.ok(), user.version()).body(new UserResponse<>(user.user()));
+    }
+
+    /**
+     * {@link #getUserById} narrowed to a sparse fieldset, e.g. {@code ?fields=id,email}. Only the
+     * selected columns are read unless the user is cached.
+     */
+    @GetMapping(value = URI_USERS_ID, params = "fields")
+    public void getUserFieldsById(@PathVariable Long id, @RequestParam List<String> fields,
+                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                  HttpServletResponse response) throws IOException {
+        Set<UserField> selected = UserField.of(fields);
+        UserFormat format = UserFormat.negotiate(accept);
+        if (ifNoneMatch != null) {
+            long version = userService.getVersionById(id);
+            if (UserETag.matches(ifNoneMatch, version)) {
+                response.setHeader(HttpHeaders.ETAG, UserETag.of(version));
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return;
+            }
+        }
+        VersionedUser user = userService.getOneVersionedById(id, selected);
+        if (user.version() != null) {
+            response.setHeader(HttpHeaders.ETAG, UserETag.of(user.version()));
+        }
+        envelopeWriter.writeUser(response, format, user.user(), selected);
+    }
+
+    @GetMapping(URI_USERS_CACHE)
+    public ResponseEntity<UserResponse<UserCacheStats>> getCacheStats() {
+        return ResponseEntity.ok(new UserResponse<>(userService.getCacheStats()));
+    }
+
+    @GetMapping(URI_USERS_BIRTH_DATE_INDEX)
+    public ResponseEntity<UserResponse<UserBirthDateIndexStats>> getBirthDateIndexStats() {
+        return ResponseEntity.ok(new UserResponse<>(userService.getBirthDateIndexStats()));
+    }
+
+    @GetMapping(URI_USERS_EMAIL_FILTER)
+    public ResponseEntity<UserResponse<UserEmailFilterStats>> getEmailFilterStats() {
+        return ResponseEntity.ok(new UserResponse<>(userService.getEmailFilterStats()));
     }
 
     @PostMapping
-    public ResponseEntity<?> createUser(@RequestBody @Valid UserDTO userDTO) {
-        Map<String, UserDTO> response = new HashMap<>();
+    public ResponseEntity<UserResponse<UserDTO>> createUser(@RequestBody @Valid UserDTO userDTO) {
         UserEntity createdUser = userService.create(userDTO);
-        response.put("data", userMapper.apply(createdUser));
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        return eTag(ResponseEntity.status(HttpStatus.CREATED), createdUser.getVersion())
+                .body(new UserResponse<>(userMapper.apply(createdUser)));
+    }
+
+    @PostMapping(URI_USERS_BATCH)
+    public void createUsers(@RequestBody List<UserDTO> userDTOs,
+                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                            HttpServletResponse response) throws IOException {
+        UserFormat format = UserFormat.negotiate(accept);
+        UserBatchResult batchResult = userService.createAll(userDTOs);
+        HttpStatus status = batchResult.created().isEmpty() && !batchResult.errors().isEmpty()
+                ? HttpStatus.BAD_REQUEST
+                : HttpStatus.CREATED;
+        envelopeWriter.writeBatch(response, status, format, batchResult, userMapper);
+    }
+
+    /**
+     * Accepts the import as soon as the body's header is read and streams the rest of the body into
+     * the import in the background. The request stays open until the body has been consumed, but
+     * the 202 with the status location is sent right away.
+     */
+    @PostMapping(value = URI_USERS_IMPORTS, consumes = {TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE})
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        UserImportFormat format = UserImportFormat.of(contentType);
+        UserImportReader reader = format.open(request.getInputStream(), contentType.getCharset(), objectMapper);
+        UserImportJob job = userImporter.create(format);
+        AsyncContext asyncContext;
+        try {
+            asyncContext = request.startAsync();
+            asyncContext.setTimeout(0);
+
+            response.setStatus(HttpStatus.ACCEPTED.value());
+            response.setHeader(HttpHeaders.LOCATION, request.getRequestURI() + "/" + job.id());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            // The generator is not closed, as closing the output stream would end the request early
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+            generator.writeObject(new UserResponse<>(job.status()));
+            generator.flush();
+            response.flushBuffer();
+        } catch (IOException | RuntimeException e) {
+            userImporter.abandon(job, "Import was not started");
+            throw e;
+        }
+        userImporter.start(job, reader, asyncContext::complete);
+    }
+
+    @GetMapping(URI_USERS_IMPORTS_ID)
+    public ResponseEntity<UserResponse<UserImportStatus>> getImportStatus(@PathVariable String id) {
+        return ResponseEntity.ok(new UserResponse<>(userImporter.getStatus(id)));
+    }
+
+    @GetMapping(URI_USERS_IMPORTS_ERRORS)
+    public void getImportErrors(@PathVariable String id, HttpServletResponse response) throws IOException {
+        UserImportStatus status = userImporter.getStatus(id);
+        response.setContentType(TEXT_CSV_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"import-" + status.id() + "-errors.csv\"");
+        userImporter.copyErrorReport(id, response.getOutputStream());
     }
 
     @PutMapping(URI_USERS_ID)
-    public ResponseEntity<?> updateUser(@PathVariable Long id, @RequestBody @Valid UserDTO userDTO) {
-        Map<String, UserDTO> response = new HashMap<>();
-        UserEntity updatedUser = userService.update(id, userDTO);
-        response.put("data", userMapper.apply(updatedUser));
-        return ResponseEntity.ok(response);
+    public ResponseEntity<UserResponse<UserDTO>> updateUser(@PathVariable Long id, @RequestBody @Valid UserDTO userDTO,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return updated(userService.update(id, userDTO, expectedVersion(ifMatch)));
     }
 
     @PatchMapping(value = URI_USERS_ID, consumes = "application/json-patch+json")
-    public ResponseEntity<?> partialUpdateUser(@PathVariable Long id, @RequestBody JsonPatch jsonPatch) throws JsonPatchException, JsonProcessingException {
-        Map<String, UserDTO> response = new HashMap<>();
-        UserEntity updatedUser = userService.partialUpdate(id, jsonPatch);
-        response.put("data", userMapper.apply(updatedUser));
-        return ResponseEntity.ok(response);
+    public ResponseEntity<UserResponse<UserDTO>> partialUpdateUser(@PathVariable Long id, @RequestBody List<UserPatchOperation> operations,
+                                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws JsonProcessingException {
+        return updated(userService.partialUpdate(id, operations, expectedVersion(ifMatch)));
+    }
+
+    private ResponseEntity<UserResponse<UserDTO>> updated(UserEntity updatedUser) {
+        return eTag(ResponseEntity.ok(), updatedUser.getVersion()).body(new UserResponse<>(userMapper.apply(updatedUser)));
+    }
+
+    private static Long expectedVersion(String ifMatch) {
+        return ifMatch == null ? null : UserETag.expectedVersion(ifMatch);
+    }
+
+    private static ResponseEntity.BodyBuilder eTag(ResponseEntity.BodyBuilder builder, Long version) {
+        return version == null ? builder : builder.eTag(UserETag.of(version));
     }
 
     @DeleteMapping(URI_USERS_ID)
-    public ResponseEntity<?> deleteUser(@PathVariable Long id) {
-        Map<String, Map<String, String>> response = new HashMap<>();
-        Map<String, String> message = new HashMap<>();
+    public ResponseEntity<UserResponse<UserMessage>> deleteUser(@PathVariable Long id) {
         if (userService.delete(id)) {
-            message.put("message", "Successfully deleted");
-            response.put("data", message);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new UserResponse<>(new UserMessage("Successfully deleted")));
         }
         return null;
     }
+
+    @DeleteMapping
+    public ResponseEntity<UserResponse<UserAffected>> deleteUsers(@RequestParam(required = false) List<Long> ids,
+                                                                  @RequestParam(required = false) Date start, @RequestParam(required = false) Date end) {
+        return ResponseEntity.ok(new UserResponse<>(new UserAffected(userService.deleteAll(ids, start, end))));
+    }
+
+    @PatchMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserResponse<UserAffected>> updateUsers(@RequestParam(required = false) List<Long> ids,
+                                                                  @RequestParam(required = false) Date start, @RequestParam(required = false) Date end,
+                                                                  @RequestBody Map<String, JsonNode> fields) throws JsonProcessingException {
+        return ResponseEntity.ok(new UserResponse<>(new UserAffected(userService.updateAll(fields, ids, start, end))));
+    }
 }
@@ -0,0 +1,93 @@
+package com.TestTask.Users;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads users from CSV with a header row naming the {@link UserDTO} fields, in any order. Empty
+ * values are read as missing.
+ */
+class UserCsvImportReader implements UserImportReader {
+
+    private static final List<UserField> REQUIRED = List.of(
+            UserField.EMAIL, UserField.FIRST_NAME, UserField.LAST_NAME, UserField.BIRTH_DATE);
+
+    private final Reader reader;
+
+    private final UserCsvReader csvReader;
+
+    private final List<UserField> columns = new ArrayList<>();
+
+    UserCsvImportReader(Reader reader) throws IOException {
+        this.reader = reader;
+        this.csvReader = new UserCsvReader(reader);
+        List<String> header = csvReader.next();
+        if (header == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The CSV header row is missing");
+        }
+        for (String name : header) {
+            UserField field = UserField.updatable(name.strip());
+            if (columns.contains(field)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The " + field.fieldName() + " column is repeated");
+            }
+            columns.add(field);
+        }
+        for (UserField field : REQUIRED) {
+            if (!columns.contains(field)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The " + field.fieldName() + " column is missing");
+            }
+        }
+    }
+
+    @Override
+    public UserImportRow next() throws IOException {
+        List<String> fields = csvReader.next();
+        while (fields != null && fields.size() == 1 && fields.get(0).isBlank()) {
+            fields = csvReader.next();
+        }
+        if (fields == null) {
+            return null;
+        }
+        long line = csvReader.line();
+        if (fields.size() != columns.size()) {
+            return new UserImportRow(line, null, "Expected " + columns.size() + " fields but found " + fields.size());
+        }
+        Map<UserField, Object> values = new EnumMap<>(UserField.class);
+        for (int i = 0; i < fields.size(); i++) {
+            String value = fields.get(i).strip();
+            if (value.isEmpty()) {
+                continue;
+            }
+            UserField field = columns.get(i);
+            if (field == UserField.BIRTH_DATE) {
+                try {
+                    values.put(field, Date.valueOf(value));
+                } catch (IllegalArgumentException e) {
+                    return new UserImportRow(line, null, "The birthDate field must be a date in yyyy-MM-dd format");
+                }
+            } else {
+                values.put(field, value);
+            }
+        }
+        return new UserImportRow(line, new UserDTO(null,
+                (String) values.get(UserField.EMAIL),
+                (String) values.get(UserField.FIRST_NAME),
+                (String) values.get(UserField.LAST_NAME),
+                (Date) values.get(UserField.BIRTH_DATE),
+                (String) values.get(UserField.ADDRESS),
+                (String) values.get(UserField.PHONE_NUMBER)), null);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
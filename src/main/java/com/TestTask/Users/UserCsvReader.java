@@ -0,0 +1,101 @@
+package com.TestTask.Users;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 reader: comma separated, double-quoted fields may contain commas, doubled
+ * quotes and line breaks. Reads one record at a time, so memory is bounded by the longest record.
+ */
+class UserCsvReader {
+
+    private final Reader reader;
+
+    private long line = 1;
+
+    private long recordLine;
+
+    private int peeked = -2;
+
+    UserCsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the fields of the next record, or {@code null} at the end of the input.
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        field.append('"');
+                        read();
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * The line the last record returned by {@link #next()} started on.
+     */
+    long line() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (peeked != -2) {
+            c = peeked;
+            peeked = -2;
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+}
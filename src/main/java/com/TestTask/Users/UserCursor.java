@@ -0,0 +1,36 @@
+package com.TestTask.Users;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.Base64;
+
+public record UserCursor(Date birthDate, Long id) {
+
+    private static final String SEPARATOR = ":";
+
+    public static UserCursor of(UserDTO user, boolean byBirthDate) {
+        return new UserCursor(byBirthDate ? user.birthDate() : null, user.id());
+    }
+
+    public static UserCursor decode(String cursor, boolean byBirthDate) {
+        try {
+            String[] segments = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR);
+            if (byBirthDate && segments.length == 2) {
+                return new UserCursor(Date.valueOf(segments[0]), Long.parseLong(segments[1]));
+            }
+            if (!byBirthDate && segments.length == 1) {
+                return new UserCursor(null, Long.parseLong(segments[0]));
+            }
+        } catch (IllegalArgumentException ignored) {
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor " + cursor);
+    }
+
+    public String encode() {
+        String value = birthDate == null ? id.toString() : birthDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,80 @@
+package com.TestTask.Users;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured datasource with replica routing when {@code user.replicas.enabled}
+ * is set, for the replicas listed in {@code user.replicas.urls}. The primary is wrapped in a
+ * {@link LazyConnectionDataSourceProxy}, which takes no connection until the first statement and
+ * by then knows whether the transaction is read-only; read-only ones get their connection from
+ * {@link UserReplicaDataSource}.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "user.replicas.enabled", havingValue = "true")
+public class UserDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public UserReplicaDataSource replicaDataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                                   @Value("${user.replicas.urls}") List<String> urls,
+                                                   @Value("${user.replicas.username}") String username,
+                                                   @Value("${user.replicas.password}") String password,
+                                                   @Value("${user.replicas.strategy}") UserReplicaStrategy strategy,
+                                                   @Value("${user.replicas.connectionTimeout}") Duration connectionTimeout,
+                                                   @Value("${user.replicas.retryAfter}") Duration retryAfter,
+                                                   MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url.strip())
+                    .username(username)
+                    .password(password)
+                    .build();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setMaximumPoolSize(primaryDataSource.getMaximumPoolSize());
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new UserReplicaDataSource(primaryDataSource, replicas, strategy, retryAfter, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 UserReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    @Bean
+    public UserReplicaRoutingFilter replicaRoutingFilter(@Value("${user.replicas.stickiness}") Duration stickiness,
+                                                         @Value("${user.replicas.maximumClients}") long maximumClients) {
+        return new UserReplicaRoutingFilter(stickiness, maximumClients);
+    }
+}
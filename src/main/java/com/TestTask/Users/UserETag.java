@@ -0,0 +1,57 @@
+package com.TestTask.Users;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Strong entity tags derived from {@link UserEntity#getVersion()}.
+ */
+final class UserETag {
+
+    private static final String ANY = "*";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private UserETag() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Weak comparison against an {@code If-None-Match} header, as required for conditional GETs.
+     */
+    static boolean matches(String ifNoneMatch, long version) {
+        String eTag = of(version);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith(WEAK_PREFIX)) {
+                candidate = candidate.substring(WEAK_PREFIX.length());
+            }
+            if (candidate.equals(ANY) || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Version expected by an {@code If-Match} header, or {@code null} for {@code *}. Weak or foreign
+     * tags can never match strongly, so they fail the precondition straight away.
+     */
+    static Long expectedVersion(String ifMatch) {
+        String candidate = ifMatch.trim();
+        if (candidate.equals(ANY)) {
+            return null;
+        }
+        if (candidate.length() > 2 && candidate.charAt(0) == '"' && candidate.charAt(candidate.length() - 1) == '"') {
+            try {
+                return Long.parseLong(candidate, 1, candidate.length() - 1, 10);
+            } catch (NumberFormatException ignored) {
+                // falls through to the failed precondition
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match does not match the current version");
+    }
+}
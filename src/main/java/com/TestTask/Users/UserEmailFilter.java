@@ -0,0 +1,243 @@
+package com.TestTask.Users;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bloom filter of the normalized emails in the users table, sized from
+ * {@code user.emailFilter.expectedInsertions} and {@code user.emailFilter.falsePositiveRate}. A
+ * negative answer means no user has the email, so the database check can be skipped. Deleted emails
+ * stay in the filter until the next rebuild and only cost an extra check. Enabled with
+ * {@code user.emailFilter.enabled}; rebuilt from a streaming scan on startup.
+ */
+@Component
+@Profile("!reactive")
+public class UserEmailFilter implements UserChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEmailFilter.class);
+
+    private final UserRepository userRepository;
+
+    private final boolean enabled;
+
+    private final double falsePositiveRate;
+
+    private final int numWords;
+
+    private final int numHashFunctions;
+
+    private final Executor executor;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private final LongAdder lookups = new LongAdder();
+
+    private final LongAdder definitelyAbsent = new LongAdder();
+
+    private final LongAdder falsePositives = new LongAdder();
+
+    private volatile Bits bits;
+
+    private Bits building;
+
+    private volatile boolean ready;
+
+    public UserEmailFilter(UserRepository userRepository,
+                           @Value("${user.emailFilter.enabled}") boolean enabled,
+                           @Value("${user.emailFilter.expectedInsertions}") long expectedInsertions,
+                           @Value("${user.emailFilter.falsePositiveRate}") double falsePositiveRate,
+                           @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.executor = executor;
+        long numBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.numWords = (int) Math.max(1, (numBits + Long.SIZE - 1) / Long.SIZE);
+        this.numHashFunctions = (int) Math.max(1, Math.round((double) numWords * Long.SIZE / expectedInsertions * Math.log(2)));
+        this.bits = new Bits(1);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (enabled) {
+            CompletableFuture.runAsync(this::rebuild, executor);
+        }
+    }
+
+    public static String normalize(String email) {
+        return email.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns {@code false} only when no user has the normalized email. Answers {@code true} while
+     * the filter is disabled or not yet built.
+     */
+    public boolean mightContain(String email) {
+        if (!ready) {
+            return true;
+        }
+        lookups.increment();
+        Bits current = bits;
+        long hash1 = mix(hash(email));
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < numHashFunctions; i++) {
+            if (!current.get(hash1 + i * hash2)) {
+                definitelyAbsent.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records that a positive answer was not confirmed by the database.
+     */
+    public void falsePositive() {
+        falsePositives.increment();
+    }
+
+    public void rebuild() {
+        rebuildLock.lock();
+        lock.writeLock().lock();
+        try {
+            building = new Bits(numWords);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long started = System.nanoTime();
+        try {
+            Bits newBits = building;
+            userRepository.forEachEmail(email -> put(newBits, normalize(email)));
+            lock.writeLock().lock();
+            try {
+                bits = newBits;
+                ready = true;
+            } finally {
+                building = null;
+                lock.writeLock().unlock();
+            }
+            log.info("Rebuilt email filter with {} emails in {} ms", newBits.insertions.sum(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                building = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Failed to rebuild email filter", e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public UserEmailFilterStats stats() {
+        Bits current = bits;
+        long numBits = (long) current.words.length() * Long.SIZE;
+        long insertions = current.insertions.sum();
+        double expectedFalsePositiveRate = Math.pow(1 - Math.exp(-(double) numHashFunctions * insertions / numBits), numHashFunctions);
+        return new UserEmailFilterStats(enabled, ready, numBits, numHashFunctions, insertions, falsePositiveRate,
+                expectedFalsePositiveRate, lookups.sum(), definitelyAbsent.sum(), falsePositives.sum(),
+                (long) current.words.length() * Long.BYTES);
+    }
+
+    @Override
+    public void onCreated(VersionedUser user) {
+        onUpdated(user);
+    }
+
+    @Override
+    public void onUpdated(VersionedUser user) {
+        write(normalize(user.user().email()));
+    }
+
+    /**
+     * Records an email a set-based write gave to existing users. Bulk changes are otherwise ignored:
+     * they only delete users or change other fields, and a deleted email merely costs an extra
+     * query until the next rebuild.
+     */
+    public void add(String email) {
+        write(normalize(email));
+    }
+
+    private void write(String email) {
+        if (!enabled) {
+            return;
+        }
+        // Bits are set atomically, so writers only exclude a rebuild swapping the filter
+        lock.readLock().lock();
+        try {
+            put(bits, email);
+            if (building != null) {
+                put(building, email);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Bits target, String email) {
+        long hash1 = mix(hash(email));
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < numHashFunctions; i++) {
+            target.set(hash1 + i * hash2);
+        }
+        target.insertions.increment();
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static final class Bits {
+
+        private final AtomicLongArray words;
+
+        private final LongAdder insertions = new LongAdder();
+
+        Bits(int numWords) {
+            this.words = new AtomicLongArray(numWords);
+        }
+
+        boolean get(long hash) {
+            long index = Math.floorMod(hash, (long) words.length() * Long.SIZE);
+            return (words.get((int) (index >>> 6)) & 1L << index) != 0;
+        }
+
+        void set(long hash) {
+            long index = Math.floorMod(hash, (long) words.length() * Long.SIZE);
+            long mask = 1L << index;
+            int word = (int) (index >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, bit) -> current | bit);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.TestTask.Users;
+
+public record UserEmailFilterStats(
+        boolean enabled,
+        boolean ready,
+        long bits,
+        int hashFunctions,
+        long insertions,
+        double configuredFalsePositiveRate,
+        double expectedFalsePositiveRate,
+        long lookups,
+        long definitelyAbsent,
+        long falsePositives,
+        long memoryBytes) {}
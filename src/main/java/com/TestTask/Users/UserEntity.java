@@ -4,11 +4,20 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Past;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.sql.Date;
+import java.time.Instant;
 
 @Entity
-@Table(name = "users")
+@DynamicUpdate
+@Table(name = "users",
+        indexes = {
+                @Index(name = "idx_users_birth_date_id", columnList = "birth_date, id"),
+                @Index(name = "idx_users_changed_at_id", columnList = "changed_at, id")},
+        uniqueConstraints = @UniqueConstraint(name = "uk_users_email", columnNames = "email"))
 public class UserEntity {
 
     public UserEntity() {}
@@ -30,7 +39,8 @@ public class UserEntity {
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -49,6 +59,17 @@ public class UserEntity {
     @Column
     private String address, phoneNumber;
 
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
+    // Set on every insert and update; writes bypassing the entity set it themselves
+    @UpdateTimestamp
+    @Column(nullable = false)
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    private Instant changedAt;
+
     public Long getId() {
         return id;
     }
@@ -104,4 +125,20 @@ public class UserEntity {
     public void setPhoneNumber(String phoneNumber) {
         this.phoneNumber = phoneNumber;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(Instant changedAt) {
+        this.changedAt = changedAt;
+    }
 }
@@ -0,0 +1,127 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Writes list envelopes straight to the response, one element at a time with writers resolved once,
+ * so no intermediate DTO list or envelope map is built. Keys come in the order the former
+ * {@code HashMap} envelopes produced. The envelope is encoded in the negotiated {@link UserFormat}.
+ * <p>
+ * With a sparse fieldset, users are written field by field and only the selected fields appear.
+ */
+class UserEnvelopeWriter {
+
+    private final UserFormats formats;
+
+    private final Map<UserFormat, ObjectWriter> userWriters = new EnumMap<>(UserFormat.class);
+
+    private final Map<UserFormat, ObjectWriter> errorWriters = new EnumMap<>(UserFormat.class);
+
+    UserEnvelopeWriter(UserFormats formats) {
+        this.formats = formats;
+        for (UserFormat format : UserFormat.values()) {
+            userWriters.put(format, writer(formats, format, UserDTO.class));
+            errorWriters.put(format, writer(formats, format, UserBatchError.class));
+        }
+    }
+
+    void writePage(HttpServletResponse response, UserFormat format, UserPage page) throws IOException {
+        writePage(response, format, page, null);
+    }
+
+    void writePage(HttpServletResponse response, UserFormat format, UserPage page, Set<UserField> fields)
+            throws IOException {
+        try (JsonGenerator generator = generator(response, HttpStatus.OK, format, "UserPage")) {
+            generator.writeStartObject();
+            generator.writeStringField("next", page.next());
+            generator.writeFieldName("data");
+            if (fields == null) {
+                writeArray(generator, page.users(), Function.identity(), userWriters.get(format));
+            } else {
+                generator.writeStartArray();
+                for (UserDTO user : page.users()) {
+                    writeUser(generator, user, fields);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    void writeUser(HttpServletResponse response, UserFormat format, UserDTO user, Set<UserField> fields)
+            throws IOException {
+        try (JsonGenerator generator = generator(response, HttpStatus.OK, format, "UserResponse")) {
+            generator.writeStartObject();
+            generator.writeFieldName("data");
+            writeUser(generator, user, fields);
+            generator.writeEndObject();
+        }
+    }
+
+    void writeBatch(HttpServletResponse response, HttpStatus status, UserFormat format, UserBatchResult batchResult,
+                    Function<UserEntity, UserDTO> userMapper) throws IOException {
+        try (JsonGenerator generator = generator(response, status, format, "UserBatchResponse")) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("data");
+            generator.writeFieldName("created");
+            writeArray(generator, batchResult.created(), userMapper, userWriters.get(format));
+            generator.writeFieldName("errors");
+            writeArray(generator, batchResult.errors(), Function.identity(), errorWriters.get(format));
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    private static <T, R> void writeArray(JsonGenerator generator, List<T> values, Function<T, R> mapper,
+                                          ObjectWriter writer) throws IOException {
+        generator.writeStartArray();
+        for (T value : values) {
+            writer.writeValue(generator, mapper.apply(value));
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Strings and ids are written directly; anything else, such as dates, goes through the
+     * format's mapper so it is serialized as in a full user.
+     */
+    private static void writeUser(JsonGenerator generator, UserDTO user, Set<UserField> fields) throws IOException {
+        generator.writeStartObject();
+        for (UserField field : fields) {
+            generator.writeFieldName(field.fieldName());
+            Object value = field.value(user);
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof String string) {
+                generator.writeString(string);
+            } else if (value instanceof Long number) {
+                generator.writeNumber(number);
+            } else {
+                generator.writeObject(value);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private JsonGenerator generator(HttpServletResponse response, HttpStatus status, UserFormat format,
+                                    String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(format.mediaType().toString());
+        return formats.generator(format, message, response.getOutputStream());
+    }
+
+    private static ObjectWriter writer(UserFormats formats, UserFormat format, Class<?> type) {
+        return formats.mapper(format).writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+}
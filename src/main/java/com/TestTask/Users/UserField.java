@@ -0,0 +1,109 @@
+package com.TestTask.Users;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+public enum UserField {
+    ID("id", Long.class, false),
+    EMAIL("email", String.class, true),
+    FIRST_NAME("firstName", String.class, true),
+    LAST_NAME("lastName", String.class, true),
+    BIRTH_DATE("birthDate", Date.class, true),
+    ADDRESS("address", String.class, true),
+    PHONE_NUMBER("phoneNumber", String.class, true);
+
+    private final String fieldName;
+
+    private final Class<?> type;
+
+    private final boolean updatable;
+
+    UserField(String fieldName, Class<?> type, boolean updatable) {
+        this.fieldName = fieldName;
+        this.type = type;
+        this.updatable = updatable;
+    }
+
+    public static UserField of(String fieldName) {
+        for (UserField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field " + fieldName);
+    }
+
+    /**
+     * Parses a sparse fieldset such as {@code ?fields=id,email}; {@code null} selects every field.
+     */
+    public static Set<UserField> of(Collection<String> fieldNames) {
+        if (fieldNames == null) {
+            return null;
+        }
+        Set<UserField> fields = EnumSet.noneOf(UserField.class);
+        for (String fieldName : fieldNames) {
+            fields.add(of(fieldName.strip()));
+        }
+        if (fields.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one field must be selected");
+        }
+        return fields;
+    }
+
+    public static UserField updatable(String fieldName) {
+        UserField field = of(fieldName);
+        if (!field.updatable) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The " + fieldName + " field cannot be updated");
+        }
+        return field;
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    public Class<?> type() {
+        return type;
+    }
+
+    public Object value(UserEntity user) {
+        return switch (this) {
+            case ID -> user.getId();
+            case EMAIL -> user.getEmail();
+            case FIRST_NAME -> user.getFirstName();
+            case LAST_NAME -> user.getLastName();
+            case BIRTH_DATE -> user.getBirthDate();
+            case ADDRESS -> user.getAddress();
+            case PHONE_NUMBER -> user.getPhoneNumber();
+        };
+    }
+
+    public Object value(UserDTO user) {
+        return switch (this) {
+            case ID -> user.id();
+            case EMAIL -> user.email();
+            case FIRST_NAME -> user.firstName();
+            case LAST_NAME -> user.lastName();
+            case BIRTH_DATE -> user.birthDate();
+            case ADDRESS -> user.address();
+            case PHONE_NUMBER -> user.phoneNumber();
+        };
+    }
+
+    public void setValue(UserEntity user, Object value) {
+        switch (this) {
+            case ID -> user.setId((Long) value);
+            case EMAIL -> user.setEmail((String) value);
+            case FIRST_NAME -> user.setFirstName((String) value);
+            case LAST_NAME -> user.setLastName((String) value);
+            case BIRTH_DATE -> user.setBirthDate((Date) value);
+            case ADDRESS -> user.setAddress((String) value);
+            case PHONE_NUMBER -> user.setPhoneNumber((String) value);
+        }
+    }
+}
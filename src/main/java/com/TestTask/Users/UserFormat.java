@@ -0,0 +1,62 @@
+package com.TestTask.Users;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Representations the users API can be served in, in order of preference when the client accepts
+ * any of them.
+ */
+public enum UserFormat {
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.parseMediaType(UserFormat.APPLICATION_CBOR_VALUE)),
+    SMILE(MediaType.parseMediaType(UserFormat.APPLICATION_SMILE_VALUE)),
+    PROTOBUF(MediaType.parseMediaType(UserFormat.APPLICATION_PROTOBUF_VALUE));
+
+    public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+
+    private final MediaType mediaType;
+
+    UserFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Picks the format for an {@code Accept} header, JSON when it is missing or accepts anything.
+     */
+    public static UserFormat negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, e.getMessage());
+        }
+        acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : acceptable) {
+            for (UserFormat format : values()) {
+                if (mediaType.getQualityValue() > 0 && mediaType.includes(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, "Acceptable representations: " +
+                Arrays.stream(values()).map(format -> format.mediaType.toString()).collect(Collectors.joining(", ")));
+    }
+}
@@ -0,0 +1,86 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mappers for every {@link UserFormat}. The binary ones are built from the same Boot-configured
+ * builder as the JSON mapper, so dates, inclusion and property names match and only the encoding
+ * differs. Protobuf messages are described in {@value #PROTOBUF_SCHEMA}.
+ * <p>
+ * The CBOR, Smile and Protobuf converters are appended after JSON, so a request accepting
+ * anything still gets JSON.
+ */
+@Component
+@Profile("!reactive")
+public class UserFormats implements WebMvcConfigurer {
+
+    public static final String PROTOBUF_SCHEMA = "proto/users.proto";
+
+    private final Map<UserFormat, ObjectMapper> mappers = new EnumMap<>(UserFormat.class);
+
+    private final NativeProtobufSchema protobufSchema;
+
+    private final Map<String, ProtobufSchema> protobufMessages = new ConcurrentHashMap<>();
+
+    public UserFormats(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder builder) throws IOException {
+        mappers.put(UserFormat.JSON, objectMapper);
+        mappers.put(UserFormat.CBOR, builder.factory(new CBORFactory()).build());
+        mappers.put(UserFormat.SMILE, builder.factory(new SmileFactory()).build());
+        mappers.put(UserFormat.PROTOBUF, builder.factory(new ProtobufFactory()).build());
+        try (InputStream in = new ClassPathResource(PROTOBUF_SCHEMA).getInputStream()) {
+            protobufSchema = ProtobufSchemaLoader.std.loadNative(in, true);
+        }
+    }
+
+    public ObjectMapper mapper(UserFormat format) {
+        return mappers.get(format);
+    }
+
+    public ProtobufSchema protobufSchema(String message) {
+        return protobufMessages.computeIfAbsent(message, protobufSchema::forType);
+    }
+
+    /**
+     * Creates a generator for {@code format}; {@code message} names the Protobuf message written
+     * at the root and is ignored by the other formats.
+     */
+    public JsonGenerator generator(UserFormat format, String message, OutputStream out) throws IOException {
+        JsonGenerator generator = mapper(format).getFactory().createGenerator(out);
+        if (format == UserFormat.PROTOBUF) {
+            generator.setSchema(protobufSchema(message));
+        }
+        return generator;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(mapper(UserFormat.CBOR)));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(mapper(UserFormat.SMILE)));
+        converters.add(new UserProtobufHttpMessageConverter(mapper(UserFormat.PROTOBUF), this::protobufSchema));
+    }
+}
@@ -0,0 +1,45 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+public enum UserImportFormat {
+    CSV(UserController.TEXT_CSV_VALUE),
+    NDJSON(UserController.APPLICATION_NDJSON_VALUE);
+
+    private final MediaType mediaType;
+
+    UserImportFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public static UserImportFormat of(MediaType contentType) {
+        for (UserImportFormat format : values()) {
+            if (format.mediaType.includes(contentType)) {
+                return format;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported import format " + contentType);
+    }
+
+    /**
+     * Opens a reader over the body. A CSV header is read right away, so a bad header is rejected
+     * before the import starts.
+     */
+    public UserImportReader open(InputStream body, Charset charset, ObjectMapper objectMapper) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, charset == null ? StandardCharsets.UTF_8 : charset));
+        return switch (this) {
+            case CSV -> new UserCsvImportReader(reader);
+            case NDJSON -> new UserNdjsonImportReader(reader, objectMapper);
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package com.TestTask.Users;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Progress of one import. Rejected rows are appended to a CSV error report on disk, so the report
+ * grows with the rejections but memory does not.
+ */
+public class UserImportJob {
+
+    private final String id = UUID.randomUUID().toString();
+
+    private final UserImportFormat format;
+
+    private final long startedNanos = System.nanoTime();
+
+    private final Timestamp startedAt = new Timestamp(System.currentTimeMillis());
+
+    private final Path errorReport;
+
+    private final BufferedWriter errors;
+
+    private volatile UserImportState state = UserImportState.RUNNING;
+
+    private volatile long processed;
+
+    private volatile long created;
+
+    private volatile long rejected;
+
+    private volatile long finishedNanos;
+
+    private volatile Timestamp finishedAt;
+
+    private volatile String error;
+
+    UserImportJob(UserImportFormat format) throws IOException {
+        this.format = format;
+        this.errorReport = Files.createTempFile("user-import-" + id, ".csv");
+        this.errors = Files.newBufferedWriter(errorReport, StandardCharsets.UTF_8);
+        errors.write("line,message\n");
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public boolean isFinished() {
+        return state != UserImportState.RUNNING;
+    }
+
+    public UserImportStatus status() {
+        long elapsedNanos = (isFinished() ? finishedNanos : System.nanoTime()) - startedNanos;
+        double rowsPerSecond = elapsedNanos > 0 ? processed / (elapsedNanos / 1e9) : 0;
+        return new UserImportStatus(id, format, state, processed, created, rejected, rowsPerSecond, startedAt,
+                finishedAt, error);
+    }
+
+    // Counters are only written by the thread running the import
+    void processed() {
+        processed++;
+    }
+
+    void created(int count) {
+        created += count;
+    }
+
+    void reject(long line, String message) throws IOException {
+        rejected++;
+        errors.write(line + ",\"" + message.replace("\"", "\"\"") + "\"\n");
+    }
+
+    /**
+     * Makes the rejections so far visible to {@link #copyErrorReport}.
+     */
+    void flush() throws IOException {
+        errors.flush();
+    }
+
+    void finish(String error) throws IOException {
+        try {
+            errors.close();
+        } finally {
+            this.error = error;
+            this.finishedNanos = System.nanoTime();
+            this.finishedAt = new Timestamp(System.currentTimeMillis());
+            this.state = error == null ? UserImportState.COMPLETED : UserImportState.FAILED;
+        }
+    }
+
+    void copyErrorReport(OutputStream out) throws IOException {
+        Files.copy(errorReport, out);
+    }
+
+    void deleteErrorReport() throws IOException {
+        Files.deleteIfExists(errorReport);
+    }
+}
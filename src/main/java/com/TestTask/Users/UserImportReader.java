@@ -0,0 +1,16 @@
+package com.TestTask.Users;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the rows of an import body one at a time. A row that cannot be parsed is returned with an
+ * error rather than failing the import; only an unreadable stream throws.
+ */
+public interface UserImportReader extends Closeable {
+
+    /**
+     * Returns the next row, or {@code null} at the end of the input.
+     */
+    UserImportRow next() throws IOException;
+}
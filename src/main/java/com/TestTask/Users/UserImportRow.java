@@ -0,0 +1,6 @@
+package com.TestTask.Users;
+
+/**
+ * One row of an import: either the user it holds or why it could not be read.
+ */
+public record UserImportRow(long line, UserDTO user, String error) {}
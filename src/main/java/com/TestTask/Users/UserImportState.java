@@ -0,0 +1,7 @@
+package com.TestTask.Users;
+
+public enum UserImportState {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
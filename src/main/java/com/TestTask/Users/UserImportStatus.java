@@ -0,0 +1,15 @@
+package com.TestTask.Users;
+
+import java.sql.Timestamp;
+
+public record UserImportStatus(
+        String id,
+        UserImportFormat format,
+        UserImportState state,
+        long processed,
+        long created,
+        long rejected,
+        double rowsPerSecond,
+        Timestamp startedAt,
+        Timestamp finishedAt,
+        String error) {}
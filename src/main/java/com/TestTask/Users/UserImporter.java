@@ -0,0 +1,224 @@
+package com.TestTask.Users;
+
+import com.TestTask.Exceptions.DataIntegrityViolations;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs imports in the background. Rows are validated and inserted by
+ * {@link UserService#createAll} in chunks of {@code user.import.chunkSize}, each committed on its
+ * own, so only the current chunk is held in memory. The last {@code user.import.retainedJobs}
+ * imports stay available for their status and error report.
+ * <p>
+ * Imports run on their own pool of {@code user.import.maxConcurrent} threads, as each holds its
+ * thread for as long as the client keeps uploading; further imports are answered with 503.
+ */
+@Component
+@Profile("!reactive")
+public class UserImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImporter.class);
+
+    private final UserService userService;
+
+    private final int chunkSize;
+
+    private final int retainedJobs;
+
+    private final Semaphore slots;
+
+    private final ExecutorService executor;
+
+    private final Map<String, UserImportJob> jobs = new LinkedHashMap<>();
+
+    public UserImporter(UserService userService,
+                        @Value("${user.import.chunkSize}") int chunkSize,
+                        @Value("${user.import.retainedJobs}") int retainedJobs,
+                        @Value("${user.import.maxConcurrent}") int maxConcurrent) {
+        this.userService = userService;
+        this.chunkSize = chunkSize;
+        this.retainedJobs = retainedJobs;
+        this.slots = new Semaphore(maxConcurrent);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("user-import-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(maxConcurrent, threadFactory);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Creates a job holding one of the import slots until it finishes or is abandoned.
+     */
+    public UserImportJob create(UserImportFormat format) throws IOException {
+        if (!slots.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many imports in progress");
+        }
+        UserImportJob job;
+        try {
+            job = new UserImportJob(format);
+        } catch (IOException | RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+        synchronized (jobs) {
+            jobs.put(job.id(), job);
+            evictFinished();
+        }
+        return job;
+    }
+
+    /**
+     * Imports the rows in the background, calling {@code onFinish} once the reader is exhausted
+     * or the import fails.
+     */
+    public void start(UserImportJob job, UserImportReader reader, Runnable onFinish) {
+        try {
+            executor.execute(() -> {
+                String error = null;
+                try (reader) {
+                    run(job, reader);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Import {} failed", job.id(), e);
+                    error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                } finally {
+                    // Freed before the job reports its outcome, so a client seeing it finish can start another
+                    slots.release();
+                    try {
+                        finish(job, error);
+                    } finally {
+                        onFinish.run();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            abandon(job, "Import was not started");
+            onFinish.run();
+        }
+    }
+
+    /**
+     * Fails a job that will not be started and frees its slot.
+     */
+    public void abandon(UserImportJob job, String error) {
+        slots.release();
+        finish(job, error);
+    }
+
+    public UserImportStatus getStatus(String id) {
+        return getJob(id).status();
+    }
+
+    public void copyErrorReport(String id, OutputStream out) throws IOException {
+        getJob(id).copyErrorReport(out);
+    }
+
+    private UserImportJob getJob(String id) {
+        synchronized (jobs) {
+            UserImportJob job = jobs.get(id);
+            if (job == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Import with id " + id + " not found");
+            }
+            return job;
+        }
+    }
+
+    private void run(UserImportJob job, UserImportReader reader) throws IOException {
+        List<UserImportRow> chunk = new ArrayList<>(chunkSize);
+        for (UserImportRow row = reader.next(); row != null; row = reader.next()) {
+            job.processed();
+            if (row.error() != null) {
+                job.reject(row.line(), row.error());
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                commit(job, chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            commit(job, chunk);
+        }
+    }
+
+    private void commit(UserImportJob job, List<UserImportRow> chunk) throws IOException {
+        UserBatchResult result;
+        try {
+            result = userService.createAll(chunk.stream().map(UserImportRow::user).toList());
+        } catch (DataIntegrityViolationException e) {
+            // An email taken since validation rolls back the whole chunk, so retry it row by row
+            for (UserImportRow row : chunk) {
+                commit(job, row);
+            }
+            job.flush();
+            return;
+        }
+        job.created(result.created().size());
+        for (UserBatchError error : result.errors()) {
+            job.reject(chunk.get(error.index()).line(), error.message());
+        }
+        job.flush();
+    }
+
+    private void commit(UserImportJob job, UserImportRow row) throws IOException {
+        try {
+            UserBatchResult result = userService.createAll(List.of(row.user()));
+            job.created(result.created().size());
+            for (UserBatchError error : result.errors()) {
+                job.reject(row.line(), error.message());
+            }
+        } catch (DataIntegrityViolationException e) {
+            if (!DataIntegrityViolations.isUniqueEmail(e)) {
+                throw e;
+            }
+            job.reject(row.line(), "User with email " + row.user().email() + " already exists");
+        }
+    }
+
+    private void finish(UserImportJob job, String error) {
+        try {
+            job.finish(error);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void evictFinished() {
+        Iterator<UserImportJob> iterator = jobs.values().iterator();
+        while (jobs.size() > retainedJobs && iterator.hasNext()) {
+            UserImportJob job = iterator.next();
+            if (job.isFinished()) {
+                iterator.remove();
+                try {
+                    job.deleteErrorReport();
+                } catch (IOException e) {
+                    log.warn("Failed to delete the error report of import {}", job.id(), e);
+                }
+            }
+        }
+    }
+}
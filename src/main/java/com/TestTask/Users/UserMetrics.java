@@ -0,0 +1,34 @@
+package com.TestTask.Users;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Business counters of the users API. Endpoint and repository latencies are timed by Spring Boot
+ * itself as {@code http.server.requests} and {@code spring.data.repository.invocations}.
+ */
+@Component
+public class UserMetrics {
+
+    private final Counter patchApplications;
+
+    private final Counter ageRejections;
+
+    public UserMetrics(MeterRegistry meterRegistry) {
+        this.patchApplications = Counter.builder("users.patch.applications")
+                .description("JSON Patch documents applied to a user")
+                .register(meterRegistry);
+        this.ageRejections = Counter.builder("users.age.rejections")
+                .description("Users rejected for being under the permitted age")
+                .register(meterRegistry);
+    }
+
+    public void patchApplied() {
+        patchApplications.increment();
+    }
+
+    public void ageRejected() {
+        ageRejections.increment();
+    }
+}
@@ -0,0 +1,50 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads one {@link UserDTO} JSON document per line. Lines are parsed one by one, so a malformed
+ * line rejects only itself.
+ */
+class UserNdjsonImportReader implements UserImportReader {
+
+    private final BufferedReader reader;
+
+    private final ObjectReader userReader;
+
+    private long line;
+
+    UserNdjsonImportReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.userReader = objectMapper.readerFor(UserDTO.class);
+    }
+
+    @Override
+    public UserImportRow next() throws IOException {
+        String json;
+        do {
+            json = reader.readLine();
+            line++;
+        } while (json != null && json.isBlank());
+        if (json == null) {
+            return null;
+        }
+        try {
+            UserDTO user = userReader.readValue(json);
+            return new UserImportRow(line, new UserDTO(null, user.email(), user.firstName(), user.lastName(),
+                    user.birthDate(), user.address(), user.phoneNumber()), null);
+        } catch (JsonProcessingException e) {
+            return new UserImportRow(line, null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
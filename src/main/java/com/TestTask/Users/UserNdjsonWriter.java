@@ -0,0 +1,55 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes one JSON document per line straight to the response. The output stream is only opened
+ * with the first row (or on close), so errors raised before streaming starts still render as JSON.
+ */
+class UserNdjsonWriter implements Consumer<UserDTO>, Closeable {
+
+    private final HttpServletResponse response;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter userWriter;
+
+    private JsonGenerator generator;
+
+    UserNdjsonWriter(HttpServletResponse response, ObjectMapper objectMapper, ObjectWriter userWriter) {
+        this.response = response;
+        this.objectMapper = objectMapper;
+        this.userWriter = userWriter;
+    }
+
+    @Override
+    public void accept(UserDTO user) {
+        try {
+            userWriter.writeValue(generator(), user);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonGenerator generator() throws IOException {
+        if (generator == null) {
+            response.setContentType(UserController.APPLICATION_NDJSON_VALUE);
+            generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        }
+        return generator;
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator().close();
+    }
+}
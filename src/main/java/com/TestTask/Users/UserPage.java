@@ -0,0 +1,5 @@
+package com.TestTask.Users;
+
+import java.util.List;
+
+public record UserPage(List<UserDTO> users, String next) {}
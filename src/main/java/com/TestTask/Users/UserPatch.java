@@ -0,0 +1,157 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * JSON Patch (RFC 6902) compiled against the flat {@link UserField} set and applied straight to an entity,
+ * with the same results as applying the patch to the entity's JSON tree.
+ */
+public class UserPatch {
+
+    private enum Op { ADD, REMOVE, REPLACE, MOVE, COPY, TEST }
+
+    private record Step(Op op, UserField path, UserField from, Object value) {}
+
+    private final List<Step> steps;
+
+    private UserPatch(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    public static UserPatch compile(List<UserPatchOperation> operations, ObjectMapper objectMapper) throws JsonProcessingException {
+        List<Step> steps = new ArrayList<>(operations.size());
+        for (UserPatchOperation operation : operations) {
+            Op op = op(operation.op());
+            UserField path = op == Op.TEST ? field(operation.path()) : UserField.updatable(fieldName(operation.path()));
+            UserField from = switch (op) {
+                case MOVE -> UserField.updatable(fieldName(operation.from()));
+                case COPY -> field(operation.from());
+                default -> null;
+            };
+            if (from != null && from.type() != path.type()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The " + from.fieldName() + " field cannot be "
+                        + (op == Op.MOVE ? "moved" : "copied") + " to the " + path.fieldName() + " field");
+            }
+            Object value = null;
+            if (op == Op.ADD || op == Op.REPLACE || op == Op.TEST) {
+                if (operation.value() == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing value for " + operation.op() + " operation");
+                }
+                value = value(operation.value(), path, objectMapper);
+            }
+            steps.add(new Step(op, path, from, value));
+        }
+        return new UserPatch(steps);
+    }
+
+    /**
+     * Applies the patch to the given user and returns the fields it changed.
+     */
+    public Set<UserField> apply(UserEntity user) {
+        Set<UserField> changed = EnumSet.noneOf(UserField.class);
+        Set<UserField> removed = EnumSet.noneOf(UserField.class);
+        for (Step step : steps) {
+            switch (step.op) {
+                case ADD -> set(user, step.path, step.value, changed, removed);
+                case REPLACE -> {
+                    present(step.path, removed);
+                    set(user, step.path, step.value, changed, removed);
+                }
+                case REMOVE -> {
+                    present(step.path, removed);
+                    step.path.setValue(user, null);
+                    changed.add(step.path);
+                    removed.add(step.path);
+                }
+                case MOVE -> {
+                    present(step.from, removed);
+                    if (step.from != step.path) {
+                        set(user, step.path, step.from.value(user), changed, removed);
+                        step.from.setValue(user, null);
+                        changed.add(step.from);
+                        removed.add(step.from);
+                    }
+                }
+                case COPY -> {
+                    present(step.from, removed);
+                    set(user, step.path, step.from.value(user), changed, removed);
+                }
+                case TEST -> {
+                    present(step.path, removed);
+                    if (!matches(step.path.value(user), step.value)) {
+                        throw new ResponseStatusException(HttpStatus.CONFLICT,
+                                "The " + step.path.fieldName() + " field does not match the tested value");
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static void set(UserEntity user, UserField field, Object value, Set<UserField> changed, Set<UserField> removed) {
+        field.setValue(user, value);
+        changed.add(field);
+        removed.remove(field);
+    }
+
+    /**
+     * Dates are compared by calendar day: Jackson parses them at UTC midnight while Hibernate loads
+     * them at local midnight, so the same day differs by the zone offset.
+     */
+    private static boolean matches(Object actual, Object expected) {
+        if (actual instanceof Date actualDate && expected instanceof Date expectedDate) {
+            return actualDate.toLocalDate().equals(expectedDate.toLocalDate());
+        }
+        return Objects.equals(actual, expected);
+    }
+
+    private static void present(UserField field, Set<UserField> removed) {
+        if (removed.contains(field)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No value at path /" + field.fieldName());
+        }
+    }
+
+    private static Op op(String op) {
+        return switch (op == null ? "" : op) {
+            case "add" -> Op.ADD;
+            case "remove" -> Op.REMOVE;
+            case "replace" -> Op.REPLACE;
+            case "move" -> Op.MOVE;
+            case "copy" -> Op.COPY;
+            case "test" -> Op.TEST;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported patch operation " + op);
+        };
+    }
+
+    private static UserField field(String path) {
+        return UserField.of(fieldName(path));
+    }
+
+    private static String fieldName(String path) {
+        if (path == null || !path.startsWith("/")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid path " + path);
+        }
+        return path.substring(1);
+    }
+
+    private static Object value(JsonNode value, UserField field, ObjectMapper objectMapper) throws JsonProcessingException {
+        try {
+            return objectMapper.treeToValue(value, field.type());
+        } catch (JsonMappingException e) {
+            e.prependPath(UserDTO.class, field.fieldName());
+            throw e;
+        }
+    }
+}
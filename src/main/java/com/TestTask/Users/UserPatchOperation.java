@@ -0,0 +1,5 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public record UserPatchOperation(String op, String path, String from, JsonNode value) {}
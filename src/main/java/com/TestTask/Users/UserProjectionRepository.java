@@ -0,0 +1,16 @@
+package com.TestTask.Users;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public interface UserProjectionRepository {
+
+    List<UserDTO> findAllProjected(Set<UserField> fields, Date start, Date end, UserCursor after, int limit);
+
+    List<UserDTO> findAllProjectedByIdIn(Set<UserField> fields, Collection<Long> ids);
+
+    Optional<VersionedUser> findVersionedProjectedById(Set<UserField> fields, Long id);
+}
@@ -0,0 +1,114 @@
+package com.TestTask.Users;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Selects only the columns of the requested {@link UserField}s. The fields left out are
+ * {@code null} in the returned DTOs, so callers must fetch whatever their cursors need.
+ */
+public class UserProjectionRepositoryImpl implements UserProjectionRepository {
+
+    private static final String VERSION = "version";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * The same keyset pages as {@link UserRepository#findAllDtos} and its siblings: by id, or by
+     * birth date and id when {@code start} and {@code end} are given.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDTO> findAllProjected(Set<UserField> fields, Date start, Date end, UserCursor after, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<UserEntity> user = query.from(UserEntity.class);
+        query.multiselect(select(user, fields));
+
+        Path<Long> id = user.get(UserField.ID.fieldName());
+        List<Predicate> predicates = new ArrayList<>(2);
+        if (start != null && end != null) {
+            Path<Date> birthDate = user.get(UserField.BIRTH_DATE.fieldName());
+            predicates.add(builder.between(birthDate, start, end));
+            if (after != null) {
+                predicates.add(builder.or(builder.greaterThan(birthDate, after.birthDate()),
+                        builder.and(builder.equal(birthDate, after.birthDate()), builder.greaterThan(id, after.id()))));
+            }
+            query.orderBy(builder.asc(birthDate), builder.asc(id));
+        } else {
+            if (after != null) {
+                predicates.add(builder.greaterThan(id, after.id()));
+            }
+            query.orderBy(builder.asc(id));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultStream()
+                .map(tuple -> dto(tuple, fields))
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDTO> findAllProjectedByIdIn(Set<UserField> fields, Collection<Long> ids) {
+        CriteriaQuery<Tuple> query = entityManager.getCriteriaBuilder().createTupleQuery();
+        Root<UserEntity> user = query.from(UserEntity.class);
+        query.multiselect(select(user, fields)).where(user.get(UserField.ID.fieldName()).in(ids));
+        return entityManager.createQuery(query)
+                .getResultStream()
+                .map(tuple -> dto(tuple, fields))
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VersionedUser> findVersionedProjectedById(Set<UserField> fields, Long id) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<UserEntity> user = query.from(UserEntity.class);
+        List<Selection<?>> selections = select(user, fields);
+        selections.add(user.get(VERSION).alias(VERSION));
+        query.multiselect(selections).where(builder.equal(user.get(UserField.ID.fieldName()), id));
+        return entityManager.createQuery(query)
+                .getResultStream()
+                .findFirst()
+                .map(tuple -> new VersionedUser(dto(tuple, fields), tuple.get(VERSION, Long.class)));
+    }
+
+    private static List<Selection<?>> select(Root<UserEntity> user, Set<UserField> fields) {
+        List<Selection<?>> selections = new ArrayList<>(fields.size() + 1);
+        for (UserField field : fields) {
+            selections.add(user.get(field.fieldName()).alias(field.fieldName()));
+        }
+        return selections;
+    }
+
+    private static UserDTO dto(Tuple tuple, Set<UserField> fields) {
+        Object[] values = new Object[UserField.values().length];
+        for (UserField field : fields) {
+            values[field.ordinal()] = tuple.get(field.fieldName());
+        }
+        return new UserDTO((Long) values[UserField.ID.ordinal()], (String) values[UserField.EMAIL.ordinal()],
+                (String) values[UserField.FIRST_NAME.ordinal()], (String) values[UserField.LAST_NAME.ordinal()],
+                (Date) values[UserField.BIRTH_DATE.ordinal()], (String) values[UserField.ADDRESS.ordinal()],
+                (String) values[UserField.PHONE_NUMBER.ordinal()]);
+    }
+}
@@ -0,0 +1,76 @@
+package com.TestTask.Users;
+
+import com.TestTask.Exceptions.ErrorDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.function.Function;
+
+/**
+ * Writes single-user responses and errors as Protobuf. The list endpoints stream their own
+ * envelopes, and request bodies stay JSON, so this converter only writes.
+ */
+class UserProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final ObjectMapper objectMapper;
+
+    private final Function<String, ProtobufSchema> schemas;
+
+    UserProtobufHttpMessageConverter(ObjectMapper objectMapper, Function<String, ProtobufSchema> schemas) {
+        super(UserFormat.PROTOBUF.mediaType());
+        this.objectMapper = objectMapper;
+        this.schemas = schemas;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == UserResponse.class || ErrorDTO.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return message(type, clazz) != null && canWrite(mediaType);
+    }
+
+    @Override
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        objectMapper.writer(schemas.apply(message(type, value.getClass())))
+                .writeValue(StreamUtils.nonClosing(outputMessage.getBody()), value);
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    private static String message(@Nullable Type type, Class<?> clazz) {
+        if (ErrorDTO.class.isAssignableFrom(clazz)) {
+            return "ErrorDTO";
+        }
+        ResolvableType resolvableType = type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz);
+        if (resolvableType.toClass() == UserResponse.class && resolvableType.getGeneric(0).toClass() == UserDTO.class) {
+            return "UserResponse";
+        }
+        return null;
+    }
+}
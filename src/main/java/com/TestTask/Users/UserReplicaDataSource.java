@@ -0,0 +1,124 @@
+package com.TestTask.Users;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Connections for read-only transactions. Picks a replica by round robin or by fewest active
+ * connections; a replica that fails to connect is skipped for {@code user.replicas.retryAfter},
+ * and when no replica is usable, or {@link UserReplicaRouting} does not allow one, the primary is
+ * used instead.
+ */
+public class UserReplicaDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(UserReplicaDataSource.class);
+
+    private final DataSource primary;
+
+    private final List<HikariDataSource> replicas;
+
+    private final UserReplicaStrategy strategy;
+
+    private final long retryAfterNanos;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final AtomicLongArray downUntil;
+
+    private final Counter failovers;
+
+    public UserReplicaDataSource(DataSource primary, List<HikariDataSource> replicas, UserReplicaStrategy strategy,
+                                 Duration retryAfter, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.strategy = strategy;
+        this.retryAfterNanos = retryAfter.toNanos();
+        this.downUntil = new AtomicLongArray(replicas.size());
+        this.failovers = Counter.builder("users.replicas.failovers")
+                .description("Read-only connections taken from the primary because no replica was usable")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * A pool that does not support the request, such as Hikari for per-call credentials, is not
+     * marked down; the exception is passed on instead.
+     */
+    private Connection connect(Connector connector) throws SQLException {
+        if (!UserReplicaRouting.isReplicaAllowed()) {
+            return connector.connect(primary);
+        }
+        long now = System.nanoTime();
+        for (int replica : order()) {
+            if (downUntil.get(replica) - now > 0) {
+                continue;
+            }
+            try {
+                return connector.connect(replicas.get(replica));
+            } catch (SQLFeatureNotSupportedException e) {
+                throw e;
+            } catch (SQLException | RuntimeException e) {
+                downUntil.set(replica, now + retryAfterNanos);
+                log.warn("Replica {} is unavailable, skipping it for {} ms", replicas.get(replica).getPoolName(),
+                        retryAfterNanos / 1_000_000, e);
+            }
+        }
+        failovers.increment();
+        return connector.connect(primary);
+    }
+
+    @FunctionalInterface
+    private interface Connector {
+
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+
+    private int[] order() {
+        int size = replicas.size();
+        if (strategy == UserReplicaStrategy.LEAST_LOADED) {
+            return IntStream.range(0, size)
+                    .boxed()
+                    .sorted(Comparator.comparingInt(this::activeConnections))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+        int first = Math.floorMod(next.getAndIncrement(), size);
+        return IntStream.range(0, size).map(i -> (first + i) % size).toArray();
+    }
+
+    private int activeConnections(int replica) {
+        HikariPoolMXBean pool = replicas.get(replica).getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
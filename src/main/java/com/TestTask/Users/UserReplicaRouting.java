@@ -0,0 +1,26 @@
+package com.TestTask.Users;
+
+/**
+ * Whether read-only transactions on the current thread may run on a replica. Only
+ * {@link UserReplicaRoutingFilter} allows it, for reads by clients without a recent write, so
+ * writes, background jobs and cache loads always see the primary.
+ */
+public final class UserReplicaRouting {
+
+    private static final ThreadLocal<Boolean> REPLICA_ALLOWED = new ThreadLocal<>();
+
+    private UserReplicaRouting() {
+    }
+
+    public static boolean isReplicaAllowed() {
+        return Boolean.TRUE.equals(REPLICA_ALLOWED.get());
+    }
+
+    static void allowReplica() {
+        REPLICA_ALLOWED.set(Boolean.TRUE);
+    }
+
+    static void clear() {
+        REPLICA_ALLOWED.remove();
+    }
+}
@@ -0,0 +1,64 @@
+package com.TestTask.Users;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Lets reads use a replica unless the same client wrote within {@code user.replicas.stickiness},
+ * so clients read their own writes despite replication lag. Clients are told apart by the
+ * {@code X-Client-Id} header, or by their address without it.
+ */
+public class UserReplicaRoutingFilter extends OncePerRequestFilter {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public UserReplicaRoutingFilter(Duration stickiness, long maximumClients) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickiness)
+                .maximumSize(maximumClients)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String client = client(request);
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        if (!read) {
+            // Marked before the write as well, so a read racing it does not miss it either
+            recentWriters.put(client, Boolean.TRUE);
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                recentWriters.put(client, Boolean.TRUE);
+            }
+            return;
+        }
+        if (recentWriters.getIfPresent(client) != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        UserReplicaRouting.allowReplica();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            UserReplicaRouting.clear();
+        }
+    }
+
+    private static String client(HttpServletRequest request) {
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        return clientId != null ? clientId : request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,6 @@
+package com.TestTask.Users;
+
+public enum UserReplicaStrategy {
+    ROUND_ROBIN,
+    LEAST_LOADED
+}
@@ -1,13 +1,97 @@
 package com.TestTask.Users;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Date;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<UserEntity, Long> {
+public interface UserRepository extends JpaRepository<UserEntity, Long>, UserStreamRepository, UserBatchRepository,
+        UserBulkRepository, UserStatsRepository, UserProjectionRepository, UserSearchRepository {
 
-    List<UserEntity> findALlByBirthDateBetween(Date start, Date end);
+    @Transactional
+    @Modifying
+    @Query("update UserEntity u set u.email = :email, u.firstName = :firstName, u.lastName = :lastName, " +
+            "u.birthDate = :birthDate, u.address = :address, u.phoneNumber = :phoneNumber, u.version = u.version + 1, " +
+            "u.changedAt = :changedAt where u.id = :id")
+    int updateOneById(Long id, String email, String firstName, String lastName, Date birthDate, String address,
+                      String phoneNumber, Instant changedAt);
+
+    @Transactional
+    @Modifying
+    @Query("update UserEntity u set u.email = :email, u.firstName = :firstName, u.lastName = :lastName, " +
+            "u.birthDate = :birthDate, u.address = :address, u.phoneNumber = :phoneNumber, u.version = u.version + 1, " +
+            "u.changedAt = :changedAt where u.id = :id and u.version = :version")
+    int updateOneByIdAndVersion(Long id, Long version, String email, String firstName, String lastName, Date birthDate,
+                                String address, String phoneNumber, Instant changedAt);
+
+    String SELECT_USER_DTO = "select new com.TestTask.Users.UserDTO(u.id, u.email, u.firstName, u.lastName, " +
+            "u.birthDate, u.address, u.phoneNumber) from UserEntity u ";
+
+    @Transactional(readOnly = true)
+    @Query("select new com.TestTask.Users.VersionedUser(u.id, u.email, u.firstName, u.lastName, u.birthDate, " +
+            "u.address, u.phoneNumber, u.version) from UserEntity u where u.id = :id")
+    Optional<VersionedUser> findVersionedById(Long id);
+
+    @Transactional(readOnly = true)
+    @Query("select u.version from UserEntity u where u.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    @Transactional(readOnly = true)
+    @Query("select case when count(u) > 0 then true else false end from UserEntity u where lower(u.email) = :email")
+    boolean existsByNormalizedEmail(String email);
+
+    @Transactional(readOnly = true)
+    @Query("select case when count(u) > 0 then true else false end from UserEntity u " +
+            "where lower(u.email) = :email and u.id <> :id")
+    boolean existsByNormalizedEmailAndIdNot(String email, Long id);
+
+    @Query(SELECT_USER_DTO + "where u.id in :ids")
+    List<UserDTO> findAllDtosByIdIn(Collection<Long> ids);
+
+    @Query("select new com.TestTask.Users.UserBirthDate(u.id, u.birthDate) from UserEntity u where u.id in :ids")
+    List<UserBirthDate> findAllBirthDatesByIdIn(Collection<Long> ids);
+
+    @Query(SELECT_USER_DTO + "order by u.id")
+    List<UserDTO> findAllDtos(Limit limit);
+
+    @Query(SELECT_USER_DTO + "where u.id > :afterId order by u.id")
+    List<UserDTO> findAllDtosAfter(Long afterId, Limit limit);
+
+    @Query(SELECT_USER_DTO + "where u.birthDate between :start and :end order by u.birthDate, u.id")
+    List<UserDTO> findAllDtosByBirthDateBetween(Date start, Date end, Limit limit);
+
+    @Query(SELECT_USER_DTO + "where u.birthDate between :start and :end " +
+            "and (u.birthDate > :afterBirthDate or (u.birthDate = :afterBirthDate and u.id > :afterId)) " +
+            "order by u.birthDate, u.id")
+    List<UserDTO> findAllDtosByBirthDateBetweenAfter(Date start, Date end, Date afterBirthDate, Long afterId, Limit limit);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.TestTask.Users.UserChange(u.id, u.changedAt, u.email, u.firstName, u.lastName, " +
+            "u.birthDate, u.address, u.phoneNumber) from UserEntity u where u.changedAt < :until " +
+            "and (u.changedAt > :afterChangedAt or (u.changedAt = :afterChangedAt and u.id > :afterId)) " +
+            "order by u.changedAt, u.id")
+    List<UserChange> findChanges(Instant afterChangedAt, Long afterId, Instant until, Limit limit);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.TestTask.Users.UserChange(t.id, t.deletedAt) from UserTombstone t where t.deletedAt < :until " +
+            "and (t.deletedAt > :afterChangedAt or (t.deletedAt = :afterChangedAt and t.id > :afterId)) " +
+            "order by t.deletedAt, t.id")
+    List<UserChange> findDeletions(Instant afterChangedAt, Long afterId, Instant until, Limit limit);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.TestTask.Users.UserBirthdayCount(month(u.birthDate), day(u.birthDate), count(u)) " +
+            "from UserEntity u group by month(u.birthDate), day(u.birthDate)")
+    List<UserBirthdayCount> countByBirthday();
+
+    @Transactional(readOnly = true)
+    long countByBirthDateBetween(Date start, Date end);
 }
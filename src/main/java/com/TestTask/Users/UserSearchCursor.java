@@ -0,0 +1,31 @@
+package com.TestTask.Users;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in search results, which are ordered by {@link UserSearchRank} and then by id.
+ */
+public record UserSearchCursor(UserSearchRank rank, Long id) {
+
+    private static final String SEPARATOR = ":";
+
+    public static UserSearchCursor decode(String cursor) {
+        try {
+            String[] segments = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR);
+            if (segments.length == 2) {
+                return new UserSearchCursor(UserSearchRank.values()[Integer.parseInt(segments[0])], Long.parseLong(segments[1]));
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ignored) {
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor " + cursor);
+    }
+
+    public String encode() {
+        String value = rank.ordinal() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
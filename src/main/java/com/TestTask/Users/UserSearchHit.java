@@ -0,0 +1,3 @@
+package com.TestTask.Users;
+
+public record UserSearchHit(long id, UserSearchRank rank) {}
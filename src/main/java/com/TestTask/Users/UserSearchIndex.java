@@ -0,0 +1,325 @@
+package com.TestTask.Users;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-process trigram index over the lower-cased email, first name and last name of every user,
+ * for databases without trigram indexes. Each trigram maps to the sorted ids of the users whose
+ * fields contain it. Enabled with {@code user.searchIndex.enabled}; rebuilt from a streaming scan
+ * on startup.
+ */
+@Component
+@Profile("!reactive")
+public class UserSearchIndex implements UserChangeListener {
+
+    public static final int GRAM_LENGTH = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private final UserRepository userRepository;
+
+    private final boolean enabled;
+
+    private final Executor executor;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private Map<Long, String[]> fields = new HashMap<>();
+
+    private Map<Long, Postings> postings = new HashMap<>();
+
+    private List<Runnable> pendingWrites;
+
+    private volatile boolean ready;
+
+    public UserSearchIndex(UserRepository userRepository,
+                           @Value("${user.searchIndex.enabled}") boolean enabled,
+                           @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.executor = executor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (enabled) {
+            CompletableFuture.runAsync(this::rebuild, executor);
+        }
+    }
+
+    public boolean canSearch(String query) {
+        return ready && query.length() >= GRAM_LENGTH;
+    }
+
+    /**
+     * Returns up to {@code limit} users with a field containing the lower-case query, ordered by
+     * rank and id and starting after the given cursor. Candidates come from the shortest posting
+     * list among the query's trigrams, so the work is bounded by its rarest trigram rather than by
+     * the number of users.
+     */
+    public List<UserSearchHit> search(String query, UserSearchCursor after, int limit) {
+        UserSearchRank first = after == null ? UserSearchRank.EXACT : after.rank();
+        List<List<UserSearchHit>> ranked = new ArrayList<>();
+        for (int i = 0; i < UserSearchRank.values().length; i++) {
+            ranked.add(new ArrayList<>());
+        }
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>();
+            for (long gram : grams(query)) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            Postings candidates = lists.get(0);
+            for (int i = 0; i < candidates.size; i++) {
+                long id = candidates.ids[i];
+                if (!containsAll(lists, id)) {
+                    continue;
+                }
+                UserSearchRank rank = UserSearchRank.of(query, fields.get(id));
+                if (rank == null || rank.compareTo(first) < 0 || rank == first && after != null && id <= after.id()) {
+                    continue;
+                }
+                List<UserSearchHit> hits = ranked.get(rank.ordinal());
+                if (hits.size() < limit) {
+                    hits.add(new UserSearchHit(id, rank));
+                }
+                if (rank == first && hits.size() == limit) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ranked.stream()
+                .flatMap(List::stream)
+                .limit(limit)
+                .toList();
+    }
+
+    private static boolean containsAll(List<Postings> lists, long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void rebuild() {
+        rebuildLock.lock();
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long started = System.nanoTime();
+        try {
+            Map<Long, String[]> newFields = new HashMap<>();
+            Map<Long, Postings> newPostings = new HashMap<>();
+            // Users arrive in id order, so every posting list is built by appending
+            userRepository.forEach(null, null, user -> {
+                String[] values = values(user);
+                newFields.put(user.id(), values);
+                for (long gram : grams(values)) {
+                    newPostings.computeIfAbsent(gram, key -> new Postings()).append(user.id());
+                }
+            });
+
+            lock.writeLock().lock();
+            try {
+                fields = newFields;
+                postings = newPostings;
+                pendingWrites.forEach(Runnable::run);
+                ready = true;
+            } finally {
+                pendingWrites = null;
+                lock.writeLock().unlock();
+            }
+            log.info("Rebuilt search index with {} users and {} trigrams in {} ms", newFields.size(),
+                    newPostings.size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Failed to rebuild search index", e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @Override
+    public void onCreated(VersionedUser user) {
+        onUpdated(user);
+    }
+
+    @Override
+    public void onUpdated(VersionedUser user) {
+        write(() -> put(user.user().id(), values(user.user())));
+    }
+
+    @Override
+    public void onDeleted(Long id) {
+        write(() -> remove(id));
+    }
+
+    @Override
+    public void onBulkChanged(Collection<Long> changedIds) {
+        if (!enabled) {
+            return;
+        }
+        if (changedIds == null) {
+            CompletableFuture.runAsync(this::rebuild, executor);
+            return;
+        }
+        Map<Long, UserDTO> users = userRepository.findAllDtosByIdIn(changedIds).stream()
+                .collect(Collectors.toMap(UserDTO::id, Function.identity()));
+        write(() -> changedIds.forEach(id -> {
+            UserDTO user = users.get(id);
+            if (user == null) {
+                remove(id);
+            } else {
+                put(id, values(user));
+            }
+        }));
+    }
+
+    private void write(Runnable write) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+            write.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(long id, String[] values) {
+        remove(id);
+        fields.put(id, values);
+        for (long gram : grams(values)) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(id);
+        }
+    }
+
+    private void remove(long id) {
+        String[] values = fields.remove(id);
+        if (values == null) {
+            return;
+        }
+        for (long gram : grams(values)) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static String[] values(UserDTO user) {
+        return new String[]{lowerCase(user.email()), lowerCase(user.firstName()), lowerCase(user.lastName())};
+    }
+
+    private static String lowerCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<Long> grams(String... values) {
+        Set<Long> grams = new LinkedHashSet<>();
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+                grams.add((long) value.charAt(i) << 32 | (long) value.charAt(i + 1) << 16 | value.charAt(i + 2));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Sorted ids of the users containing one trigram.
+     */
+    private static final class Postings {
+
+        private long[] ids = new long[4];
+
+        private int size;
+
+        void append(long id) {
+            ensureCapacity();
+            ids[size++] = id;
+        }
+
+        void add(long id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i >= 0) {
+                return;
+            }
+            ensureCapacity();
+            i = -i - 1;
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            ids[i] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+        }
+    }
+}
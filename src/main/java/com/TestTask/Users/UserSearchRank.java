@@ -0,0 +1,30 @@
+package com.TestTask.Users;
+
+/**
+ * How well a user matches a search query, best first. A user ranks by its best matching field
+ * among email, first name and last name; query and fields are compared in lower case.
+ */
+public enum UserSearchRank {
+
+    EXACT,
+    PREFIX,
+    SUBSTRING;
+
+    public static UserSearchRank of(String query, String... fields) {
+        UserSearchRank best = null;
+        for (String field : fields) {
+            if (field == null) {
+                continue;
+            }
+            if (field.equals(query)) {
+                return EXACT;
+            }
+            if (field.startsWith(query)) {
+                best = PREFIX;
+            } else if (best == null && field.contains(query)) {
+                best = SUBSTRING;
+            }
+        }
+        return best;
+    }
+}
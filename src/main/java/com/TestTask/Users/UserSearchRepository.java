@@ -0,0 +1,12 @@
+package com.TestTask.Users;
+
+import java.util.List;
+
+public interface UserSearchRepository {
+
+    List<UserDTO> searchExact(String query, Long afterId, int limit);
+
+    List<UserDTO> searchPrefix(String query, String prefix, Long afterId, int limit);
+
+    List<UserDTO> searchSubstring(String prefix, String substring, Long afterId, int limit);
+}
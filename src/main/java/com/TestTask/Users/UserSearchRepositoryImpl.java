@@ -0,0 +1,87 @@
+package com.TestTask.Users;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * One query per search rank, each bounded by {@code user.search.maxCandidates} rows whether the
+ * query is rare or broad. An unordered, capped id query goes first: PostgreSQL answers it from the
+ * trigram indexes and stops after the cap, so a rare match costs its matches, never the table.
+ * Only when it hits the cap, which means matches are dense, is the page read in id order, where
+ * the primary key walk finds {@code limit} matches after a few rows. Neither query materializes
+ * every match of a broad query for every page.
+ */
+public class UserSearchRepositoryImpl implements UserSearchRepository {
+
+    private static final String MATCHES_EXACTLY = "(lower(u.email) = :query or lower(u.firstName) = :query " +
+            "or lower(u.lastName) = :query)";
+
+    private static final String MATCHES_PREFIX = "(lower(u.email) like :prefix escape '\\' " +
+            "or lower(u.firstName) like :prefix escape '\\' or lower(u.lastName) like :prefix escape '\\')";
+
+    private static final String MATCHES_SUBSTRING = "(lower(u.email) like :substring escape '\\' " +
+            "or lower(u.firstName) like :substring escape '\\' or lower(u.lastName) like :substring escape '\\')";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${user.search.maxCandidates}")
+    private int maxCandidates;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDTO> searchExact(String query, Long afterId, int limit) {
+        return search(MATCHES_EXACTLY, null, afterId, limit, Map.of("query", query));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDTO> searchPrefix(String query, String prefix, Long afterId, int limit) {
+        return search(MATCHES_PREFIX, MATCHES_EXACTLY, afterId, limit, Map.of("query", query, "prefix", prefix));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDTO> searchSubstring(String prefix, String substring, Long afterId, int limit) {
+        return search(MATCHES_SUBSTRING, MATCHES_PREFIX, afterId, limit, Map.of("prefix", prefix, "substring", substring));
+    }
+
+    private List<UserDTO> search(String matches, String betterRank, Long afterId, int limit, Map<String, String> parameters) {
+        String where = " where " + matches + " and u.id > :afterId" + (betterRank == null ? "" : " and not " + betterRank);
+        List<Long> ids = new ArrayList<>(query("select u.id from UserEntity u" + where, Long.class, afterId, parameters)
+                .setMaxResults(maxCandidates + 1)
+                .getResultList());
+        if (ids.size() > maxCandidates) {
+            return query(UserRepository.SELECT_USER_DTO + where + " order by u.id", UserDTO.class, afterId, parameters)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        ids.sort(null);
+        List<Long> pageIds = ids.subList(0, Math.min(limit, ids.size()));
+        Map<Long, UserDTO> users = new HashMap<>();
+        entityManager.createQuery(UserRepository.SELECT_USER_DTO + "where u.id in :ids", UserDTO.class)
+                .setParameter("ids", pageIds)
+                .getResultList()
+                .forEach(user -> users.put(user.id(), user));
+        // A user deleted between the two queries is skipped
+        return pageIds.stream().map(users::get).filter(Objects::nonNull).toList();
+    }
+
+    private <T> TypedQuery<T> query(String query, Class<T> type, Long afterId, Map<String, String> parameters) {
+        TypedQuery<T> typedQuery = entityManager.createQuery(query, type).setParameter("afterId", afterId);
+        parameters.forEach(typedQuery::setParameter);
+        return typedQuery;
+    }
+}
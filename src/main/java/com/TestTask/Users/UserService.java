@@ -1,23 +1,55 @@
 package com.TestTask.Users;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.github.fge.jsonpatch.JsonPatch;
-import com.github.fge.jsonpatch.JsonPatchException;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import java.sql.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserService {
 
-    List<UserEntity> getAll(Date start, Date end);
+    UserPage getAll(Date start, Date end, String after, Integer limit, Set<UserField> fields);
+
+    UserPage search(String query, String after, Integer limit);
+
+    void export(Date start, Date end, Consumer<UserDTO> action);
+
+    UserChangePage getChanges(String since, Integer limit);
+
+    UserAgeStats getAgeStats(Integer bucketSize);
+
+    UserBirthdayStats getBirthdayStats();
+
+    UserCount count(Date start, Date end);
 
     UserEntity getOneById(Long id);
 
+    VersionedUser getOneVersionedById(Long id);
+
+    VersionedUser getOneVersionedById(Long id, Set<UserField> fields);
+
+    long getVersionById(Long id);
+
+    UserCacheStats getCacheStats();
+
+    UserBirthDateIndexStats getBirthDateIndexStats();
+
+    UserEmailFilterStats getEmailFilterStats();
+
     UserEntity create(UserDTO userDTO);
 
-    UserEntity update(Long id, UserDTO userDTO);
+    UserBatchResult createAll(List<UserDTO> userDTOs);
 
-    UserEntity partialUpdate(Long id, JsonPatch jsonPatch) throws JsonPatchException, JsonProcessingException;
+    UserEntity update(Long id, UserDTO userDTO, Long expectedVersion);
+
+    UserEntity partialUpdate(Long id, List<UserPatchOperation> operations, Long expectedVersion) throws JsonProcessingException;
 
     boolean delete(Long id);
+
+    int deleteAll(List<Long> ids, Date start, Date end);
+
+    int updateAll(Map<String, JsonNode> fields, List<Long> ids, Date start, Date end) throws JsonProcessingException;
 }
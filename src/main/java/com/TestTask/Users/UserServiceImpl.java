@@ -1,61 +1,564 @@
 package com.TestTask.Users;
 
+import com.TestTask.Exceptions.DataIntegrityViolations;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.github.fge.jsonpatch.JsonPatch;
-import com.github.fge.jsonpatch.JsonPatchException;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.NotNull;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.sql.Date;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.Year;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
+@Profile("!reactive")
 public class UserServiceImpl implements UserService {
 
+    // A null value violates both NotNull and NotBlank, report it as missing
+    private static final Comparator<ConstraintViolation<?>> VIOLATION_ORDER = Comparator
+            .<ConstraintViolation<?>, Boolean>comparing(violation ->
+                    !(violation.getConstraintDescriptor().getAnnotation() instanceof NotNull))
+            .thenComparing(ConstraintViolation::getMessage);
+
+    private static final Year LEAP_YEAR = Year.of(2000);
+
+    private static final Comparator<UserChange> CHANGE_ORDER = Comparator.comparing(UserChange::changedAt)
+            .thenComparing(UserChange::id);
+
     @Value("${user.permittedAge}")
     private int permittedAge;
 
+    @Value("${user.page.defaultLimit}")
+    private int defaultPageLimit;
+
+    @Value("${user.page.maxLimit}")
+    private int maxPageLimit;
+
+    @Value("${user.batch.chunkSize}")
+    private int batchChunkSize;
+
+    @Value("${user.batch.maxSize}")
+    private int maxBatchSize;
+
+    @Value("${user.bulk.idChunkSize}")
+    private int bulkIdChunkSize;
+
+    @Value("${user.search.minLength}")
+    private int searchMinLength;
+
+    @Value("${user.writeBehind.timeout}")
+    private Duration writeBehindTimeout;
+
+    @Value("${user.changes.settleTime}")
+    private Duration changesSettleTime;
+
+    @Value("${user.stats.ageBucketSize}")
+    private int defaultAgeBucketSize;
+
+    @Value("${user.stats.maxAgeBucketSize}")
+    private int maxAgeBucketSize;
+
     private final UserRepository userRepository;
 
     private final ObjectMapper objectMapper;
 
-    public UserServiceImpl(UserRepository userRepository, ObjectMapper objectMapper) {
+    private final Validator validator;
+
+    private final UserCache userCache;
+
+    private final UserMapper userMapper;
+
+    private final UserBirthDateIndex birthDateIndex;
+
+    private final UserSearchIndex searchIndex;
+
+    private final UserEmailFilter emailFilter;
+
+    private final UserWriteBehind writeBehind;
+
+    private final List<UserChangeListener> changeListeners;
+
+    private final UserMetrics userMetrics;
+
+    public UserServiceImpl(UserRepository userRepository, ObjectMapper objectMapper, Validator validator,
+                           UserCache userCache, UserMapper userMapper, UserBirthDateIndex birthDateIndex,
+                           UserSearchIndex searchIndex, UserEmailFilter emailFilter, UserWriteBehind writeBehind,
+                           List<UserChangeListener> changeListeners,
+                           UserMetrics userMetrics) {
         this.userRepository = userRepository;
         this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.userCache = userCache;
+        this.userMapper = userMapper;
+        this.birthDateIndex = birthDateIndex;
+        this.searchIndex = searchIndex;
+        this.emailFilter = emailFilter;
+        this.writeBehind = writeBehind;
+        this.changeListeners = changeListeners;
+        this.userMetrics = userMetrics;
     }
 
     @Override
-    public List<UserEntity> getAll(Date start, Date end) {
+    @Transactional(readOnly = true)
+    public UserPage getAll(Date start, Date end, String after, Integer limit, Set<UserField> fields) {
+        int pageLimit = pageLimit(limit);
+        boolean byBirthDate = isBirthDateRange(start, end);
+        UserCursor cursor = after == null ? null : UserCursor.decode(after, byBirthDate);
+        Limit fetchLimit = Limit.of(pageLimit + 1);
+        Set<UserField> columns = fields == null ? null : columns(fields, byBirthDate);
+
+        if (byBirthDate && birthDateIndex.isReady()) {
+            return getAllFromIndex(start, end, cursor, pageLimit, columns);
+        }
+
+        List<UserDTO> users;
+        if (columns != null) {
+            users = userRepository.findAllProjected(columns, start, end, cursor, pageLimit + 1);
+        } else if (byBirthDate) {
+            users = cursor == null
+                    ? userRepository.findAllDtosByBirthDateBetween(start, end, fetchLimit)
+                    : userRepository.findAllDtosByBirthDateBetweenAfter(start, end, cursor.birthDate(), cursor.id(), fetchLimit);
+        } else {
+            users = cursor == null
+                    ? userRepository.findAllDtos(fetchLimit)
+                    : userRepository.findAllDtosAfter(cursor.id(), fetchLimit);
+        }
+
+        if (users.size() <= pageLimit) {
+            return new UserPage(users, null);
+        }
+        List<UserDTO> page = users.subList(0, pageLimit);
+        return new UserPage(page, UserCursor.of(page.get(pageLimit - 1), byBirthDate).encode());
+    }
+
+    /**
+     * Pages by the index's entries rather than by the loaded rows: a user deleted since it was
+     * indexed leaves the page short, but neither ends the paging early nor moves the cursor back.
+     */
+    private UserPage getAllFromIndex(Date start, Date end, UserCursor cursor, int pageLimit, Set<UserField> columns) {
+        List<UserCursor> entries = birthDateIndex.findEntries(start, end, cursor, pageLimit + 1);
+        boolean hasNext = entries.size() > pageLimit;
+        if (hasNext) {
+            entries = entries.subList(0, pageLimit);
+        }
+        List<UserDTO> users = findAllDtosInOrder(entries.stream().map(UserCursor::id).toList(), columns);
+        return new UserPage(users, hasNext ? entries.get(pageLimit - 1).encode() : null);
+    }
+
+    /**
+     * The requested fields plus the ones the page cursor is built from.
+     */
+    private static Set<UserField> columns(Set<UserField> fields, boolean byBirthDate) {
+        Set<UserField> columns = EnumSet.copyOf(fields);
+        columns.add(UserField.ID);
+        if (byBirthDate) {
+            columns.add(UserField.BIRTH_DATE);
+        }
+        return columns;
+    }
+
+    private int pageLimit(Integer limit) {
+        int pageLimit = limit == null ? defaultPageLimit : limit;
+        if (pageLimit < 1 || pageLimit > maxPageLimit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + maxPageLimit);
+        }
+        return pageLimit;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserPage search(String query, String after, Integer limit) {
+        int pageLimit = pageLimit(limit);
+        String normalized = query.strip().toLowerCase(Locale.ROOT);
+        if (normalized.length() < searchMinLength) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Search query must be at least " + searchMinLength + " characters");
+        }
+        UserSearchCursor cursor = after == null ? null : UserSearchCursor.decode(after);
+
+        List<UserDTO> users;
+        Map<Long, UserSearchRank> ranks = new HashMap<>();
+        if (searchIndex.canSearch(normalized)) {
+            List<UserSearchHit> hits = searchIndex.search(normalized, cursor, pageLimit + 1);
+            hits.forEach(hit -> ranks.put(hit.id(), hit.rank()));
+            users = findAllDtosInOrder(hits.stream().map(UserSearchHit::id).toList(), null);
+        } else {
+            users = searchDatabase(normalized, cursor, pageLimit + 1, ranks);
+        }
+
+        if (users.size() <= pageLimit) {
+            return new UserPage(users, null);
+        }
+        List<UserDTO> page = users.subList(0, pageLimit);
+        UserDTO last = page.get(pageLimit - 1);
+        return new UserPage(page, new UserSearchCursor(ranks.get(last.id()), last.id()).encode());
+    }
+
+    /**
+     * Runs one keyset query per rank, best rank first, until the page is full. Each query only
+     * returns users not matched by a better rank.
+     */
+    private List<UserDTO> searchDatabase(String query, UserSearchCursor cursor, int limit, Map<Long, UserSearchRank> ranks) {
+        String prefix = query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        String substring = "%" + prefix;
+        List<UserDTO> users = new ArrayList<>(limit);
+        UserSearchRank[] values = UserSearchRank.values();
+        for (int i = cursor == null ? 0 : cursor.rank().ordinal(); i < values.length && users.size() < limit; i++) {
+            UserSearchRank rank = values[i];
+            Long afterId = cursor != null && cursor.rank() == rank ? cursor.id() : 0L;
+            int fetchLimit = limit - users.size();
+            List<UserDTO> matched = switch (rank) {
+                case EXACT -> userRepository.searchExact(query, afterId, fetchLimit);
+                case PREFIX -> userRepository.searchPrefix(query, prefix, afterId, fetchLimit);
+                case SUBSTRING -> userRepository.searchSubstring(prefix, substring, afterId, fetchLimit);
+            };
+            matched.forEach(user -> ranks.put(user.id(), rank));
+            users.addAll(matched);
+        }
+        return users;
+    }
+
+    /**
+     * Serves cached users as they are and loads the others, narrowed to {@code columns} unless it
+     * is {@code null}.
+     */
+    private List<UserDTO> findAllDtosInOrder(List<Long> ids, Set<UserField> columns) {
+        Map<Long, UserDTO> users = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            VersionedUser user = userCache.getIfPresent(id);
+            if (user == null) {
+                missing.add(id);
+            } else {
+                users.put(id, user.user());
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<UserDTO> loaded = columns == null
+                    ? userRepository.findAllDtosByIdIn(missing)
+                    : userRepository.findAllProjectedByIdIn(columns, missing);
+            loaded.forEach(user -> users.put(user.id(), user));
+        }
+        List<UserDTO> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            UserDTO user = users.get(id);
+            if (user != null) {
+                ordered.add(user);
+            }
+        }
+        return ordered;
+    }
+
+    @Override
+    public UserBirthDateIndexStats getBirthDateIndexStats() {
+        return birthDateIndex.stats();
+    }
+
+    @Override
+    public void export(Date start, Date end, Consumer<UserDTO> action) {
+        if (isBirthDateRange(start, end)) {
+            userRepository.forEach(start, end, action);
+        } else {
+            userRepository.forEach(null, null, action);
+        }
+    }
+
+    /**
+     * Merges changed users and tombstones after {@code since} in change order. Changes younger than
+     * {@code user.changes.settleTime} are held back, so a write whose transaction commits late, or
+     * that was stamped by an instance with a slightly late clock, is not skipped by a consumer
+     * that has already moved past its time.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public UserChangePage getChanges(String since, Integer limit) {
+        int pageLimit = pageLimit(limit);
+        UserChangeCursor cursor = since == null ? UserChangeCursor.START : UserChangeCursor.decode(since);
+        Instant until = Instant.now().minus(changesSettleTime);
+        Limit fetchLimit = Limit.of(pageLimit);
+
+        List<UserChange> changes = new ArrayList<>(2 * pageLimit);
+        changes.addAll(userRepository.findChanges(cursor.changedAt(), cursor.id(), until, fetchLimit));
+        changes.addAll(userRepository.findDeletions(cursor.changedAt(), cursor.id(), until, fetchLimit));
+        changes.sort(CHANGE_ORDER);
+        List<UserChange> page = changes.size() <= pageLimit ? changes : changes.subList(0, pageLimit);
+        UserChangeCursor next = page.isEmpty() ? cursor : UserChangeCursor.of(page.get(page.size() - 1));
+        return new UserChangePage(next.encode(), page);
+    }
+
+    /**
+     * Turns birth year counts into ages as of today. The first bucket is everyone under
+     * {@code user.permittedAge}, so the boundary the service enforces is never split.
+     */
+    @Override
+    public UserAgeStats getAgeStats(Integer bucketSize) {
+        int size = bucketSize == null ? defaultAgeBucketSize : bucketSize;
+        if (size < 1 || size > maxAgeBucketSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bucket size must be between 1 and " + maxAgeBucketSize);
+        }
+        LocalDate today = LocalDate.now();
+        long underage = 0;
+        Map<Integer, Long> counts = new HashMap<>();
+        int buckets = 0;
+        for (UserBirthYearCount count : userRepository.countByBirthYear(MonthDay.from(today))) {
+            int age = today.getYear() - count.year() - (count.birthdayPassed() ? 0 : 1);
+            if (age < permittedAge) {
+                underage += count.count();
+            } else {
+                int bucket = (age - permittedAge) / size;
+                counts.merge(bucket, count.count(), Long::sum);
+                buckets = Math.max(buckets, bucket + 1);
+            }
+        }
+        List<UserAgeBucket> histogram = new ArrayList<>(buckets + 1);
+        histogram.add(new UserAgeBucket(0, permittedAge, underage));
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int from = permittedAge + bucket * size;
+            histogram.add(new UserAgeBucket(from, from + size, counts.getOrDefault(bucket, 0L)));
+        }
+        return new UserAgeStats(permittedAge, size, histogram);
+    }
+
+    @Override
+    public UserBirthdayStats getBirthdayStats() {
+        long[] months = new long[12];
+        long[] daysOfYear = new long[366];
+        for (UserBirthdayCount count : userRepository.countByBirthday()) {
+            months[count.month() - 1] += count.count();
+            daysOfYear[LEAP_YEAR.atMonth(count.month()).atDay(count.day()).getDayOfYear() - 1] += count.count();
+        }
+        return new UserBirthdayStats(months, daysOfYear);
+    }
+
+    @Override
+    public UserCount count(Date start, Date end) {
+        return new UserCount(isBirthDateRange(start, end)
+                ? userRepository.countByBirthDateBetween(start, end)
+                : userRepository.count());
+    }
+
+    private boolean isBirthDateRange(Date start, Date end) {
         if (start != null && end != null) {
             if (start.before(end)) {
-                return userRepository.findALlByBirthDateBetween(start, end);
+                return true;
             }
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Start date greater than end date");
         }
-        return userRepository.findAll();
+        return false;
     }
 
     @Override
+    public UserEmailFilterStats getEmailFilterStats() {
+        return emailFilter.stats();
+    }
+
+    @Override
+    public UserCacheStats getCacheStats() {
+        return userCache.stats();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public UserEntity getOneById(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new EntityNotFoundException("Unable to find UserEntity with id " + id);
+        return userRepository.findById(id).orElseThrow(() -> notFound(id));
+    }
+
+    private EntityNotFoundException notFound(Long id) {
+        return new EntityNotFoundException("Unable to find UserEntity with id " + id);
+    }
+
+    @Override
+    public VersionedUser getOneVersionedById(Long id) {
+        VersionedUser user = userCache.get(id);
+        if (user == null) {
+            throw notFound(id);
+        }
+        return user;
+    }
+
+    /**
+     * Serves a cached user as it is; otherwise loads only {@code fields} and leaves the cache alone,
+     * as a partial row cannot be cached.
+     */
+    @Override
+    public VersionedUser getOneVersionedById(Long id, Set<UserField> fields) {
+        VersionedUser user = userCache.getIfPresent(id);
+        if (user != null && user.version() != null) {
+            return user;
+        }
+        return userRepository.findVersionedProjectedById(fields, id).orElseThrow(() -> notFound(id));
+    }
+
+    @Override
+    public long getVersionById(Long id) {
+        VersionedUser user = userCache.getIfPresent(id);
+        if (user != null && user.version() != null) {
+            return user.version();
+        }
+        return userRepository.findVersionById(id).orElseThrow(() -> notFound(id));
+    }
+
+    private ResponseStatusException modified(Long id) {
+        return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "UserEntity with id " + id + " has been modified");
+    }
+
+    private ResponseStatusException duplicateEmail(String email) {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "User with email " + email + " already exists");
+    }
+
+    /**
+     * Rejects an email that a user other than {@code id} already has. The email filter answers for
+     * most new emails without a query; the unique index on email catches writes racing this check.
+     */
+    private void verifyUniqueEmail(String email, Long id) {
+        String normalized = UserEmailFilter.normalize(email);
+        if (!emailFilter.mightContain(normalized)) {
+            return;
+        }
+        if (id == null ? userRepository.existsByNormalizedEmail(normalized)
+                : userRepository.existsByNormalizedEmailAndIdNot(normalized, id)) {
+            throw duplicateEmail(email);
+        }
+        // An update keeping its own email is not a false positive
+        if (id == null) {
+            emailFilter.falsePositive();
         }
-        return userRepository.getReferenceById(id);
     }
 
     @Override
     public UserEntity create(UserDTO userDTO) {
         ageVerification(userDTO.birthDate());
-        UserEntity user = new UserEntity(userDTO.email(), userDTO.firstName(), userDTO.lastName(), userDTO.birthDate(),
+        verifyUniqueEmail(userDTO.email(), null);
+        try {
+            if (writeBehind.isEnabled()) {
+                // Listeners run when the batch commits, whether or not the caller is still waiting
+                return awaitWriteBehind(writeBehind.submit(() -> newUser(userDTO)).thenApply(this::fireCreated));
+            }
+            return fireCreated(userRepository.save(newUser(userDTO)));
+        } catch (DataIntegrityViolationException e) {
+            throw DataIntegrityViolations.isUniqueEmail(e) ? duplicateEmail(userDTO.email()) : e;
+        }
+    }
+
+    private UserEntity fireCreated(UserEntity user) {
+        VersionedUser createdUser = versioned(user);
+        changeListeners.forEach(listener -> listener.onCreated(createdUser));
+        return user;
+    }
+
+    /**
+     * Waits at most {@code user.writeBehind.timeout}; a user whose batch commits after that is
+     * still created and reaches the listeners, but the caller has already been answered with 503.
+     */
+    private UserEntity awaitWriteBehind(CompletableFuture<UserEntity> future) {
+        try {
+            return future.get(writeBehindTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Timed out waiting for the write");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted waiting for the write");
+        }
+    }
+
+    @Override
+    public UserBatchResult createAll(List<UserDTO> userDTOs) {
+        if (userDTOs.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch size must not exceed " + maxBatchSize);
+        }
+        List<UserEntity> created = new ArrayList<>(userDTOs.size());
+        List<UserBatchError> errors = new ArrayList<>();
+        List<UserEntity> chunk = new ArrayList<>(batchChunkSize);
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < userDTOs.size(); i++) {
+            String error = validate(userDTOs.get(i), emails);
+            if (error != null) {
+                errors.add(new UserBatchError(i, error));
+                continue;
+            }
+            chunk.add(newUser(userDTOs.get(i)));
+            if (chunk.size() == batchChunkSize) {
+                created.addAll(insertAll(chunk));
+                chunk = new ArrayList<>(batchChunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            created.addAll(insertAll(chunk));
+        }
+        return new UserBatchResult(created, errors);
+    }
+
+    private List<UserEntity> insertAll(List<UserEntity> users) {
+        List<UserEntity> created = userRepository.insertAll(users);
+        created.forEach(this::fireCreated);
+        return created;
+    }
+
+    private String validate(UserDTO userDTO, Set<String> emails) {
+        if (userDTO == null) {
+            return "The user must not be null";
+        }
+        Set<ConstraintViolation<UserDTO>> violations = validator.validate(userDTO);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> "The " + violation.getPropertyPath() + " field " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        try {
+            ageVerification(userDTO.birthDate());
+            if (!emails.add(UserEmailFilter.normalize(userDTO.email()))) {
+                throw duplicateEmail(userDTO.email());
+            }
+            verifyUniqueEmail(userDTO.email(), null);
+        } catch (ResponseStatusException e) {
+            return e.getReason();
+        }
+        return null;
+    }
+
+    private UserEntity newUser(UserDTO userDTO) {
+        return new UserEntity(userDTO.email(), userDTO.firstName(), userDTO.lastName(), userDTO.birthDate(),
                 userDTO.address(), userDTO.phoneNumber());
-        return userRepository.save(user);
     }
 
     public void ageVerification(Date userBirthDate) {
@@ -64,36 +567,198 @@ public class UserServiceImpl implements UserService {
         calendar.setTime(currentDate);
         calendar.add(Calendar.YEAR, -permittedAge);
         if (userBirthDate.after(calendar.getTime())) {
+            userMetrics.ageRejected();
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You cannot use this service, because you're under " + permittedAge);
         }
     }
 
     @Override
-    public UserEntity update(Long id, UserDTO userDTO) {
-        UserEntity existingUser = getOneById(id);
-        UserEntity updatedUser = new UserEntity(userDTO.email(), userDTO.firstName(), userDTO.lastName(), userDTO.birthDate(),
-                userDTO.address(), userDTO.phoneNumber());
-        updatedUser.setId(existingUser.getId());
-        ageVerification(updatedUser.getBirthDate());
-        userRepository.save(updatedUser);
+    public UserEntity update(Long id, UserDTO userDTO, Long expectedVersion) {
+        try {
+            ageVerification(userDTO.birthDate());
+        } catch (ResponseStatusException e) {
+            if (!userRepository.existsById(id)) {
+                throw notFound(id);
+            }
+            throw e;
+        }
+        VersionedUser cached = userCache.getIfPresent(id);
+        if (cached == null || !UserEmailFilter.normalize(cached.user().email()).equals(UserEmailFilter.normalize(userDTO.email()))) {
+            verifyUniqueEmail(userDTO.email(), id);
+        }
+        int updated;
+        try {
+            updated = expectedVersion == null
+                    ? userRepository.updateOneById(id, userDTO.email(), userDTO.firstName(), userDTO.lastName(),
+                            userDTO.birthDate(), userDTO.address(), userDTO.phoneNumber(), Instant.now())
+                    : userRepository.updateOneByIdAndVersion(id, expectedVersion, userDTO.email(), userDTO.firstName(),
+                            userDTO.lastName(), userDTO.birthDate(), userDTO.address(), userDTO.phoneNumber(), Instant.now());
+        } catch (DataIntegrityViolationException e) {
+            throw DataIntegrityViolations.isUniqueEmail(e) ? duplicateEmail(userDTO.email()) : e;
+        }
+        if (updated == 0) {
+            if (expectedVersion != null && userRepository.existsById(id)) {
+                throw modified(id);
+            }
+            throw notFound(id);
+        }
+        UserEntity updatedUser = newUser(userDTO);
+        updatedUser.setId(id);
+        // A blind update does not learn the new version without another round trip
+        updatedUser.setVersion(expectedVersion == null ? null : expectedVersion + 1);
+        fireUpdated(updatedUser);
         return updatedUser;
     }
 
     @Override
-    public UserEntity partialUpdate(Long id, JsonPatch jsonPatch) throws JsonPatchException, JsonProcessingException {
+    @Transactional
+    public UserEntity partialUpdate(Long id, List<UserPatchOperation> operations, Long expectedVersion) throws JsonProcessingException {
+        UserPatch patch = UserPatch.compile(operations, objectMapper);
         UserEntity existingUser = getOneById(id);
-        objectMapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
-        JsonNode patched = jsonPatch.apply(objectMapper.convertValue(existingUser, JsonNode.class));
-        UserEntity updatedUser = objectMapper.treeToValue(patched, UserEntity.class);
-        ageVerification(updatedUser.getBirthDate());
-        userRepository.save(updatedUser);
-        return updatedUser;
+        if (expectedVersion != null && !expectedVersion.equals(existingUser.getVersion())) {
+            throw modified(id);
+        }
+        Set<UserField> changed = patch.apply(existingUser);
+        userMetrics.patchApplied();
+        if (changed.contains(UserField.BIRTH_DATE) && existingUser.getBirthDate() != null) {
+            ageVerification(existingUser.getBirthDate());
+        }
+        for (UserField field : changed) {
+            validateValue(field, field.value(existingUser));
+        }
+        if (changed.contains(UserField.EMAIL)) {
+            verifyUniqueEmail(existingUser.getEmail(), id);
+        }
+        // Flushing here bumps the version before the listeners, notified on commit, and the response see it
+        try {
+            userRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw DataIntegrityViolations.isUniqueEmail(e) ? duplicateEmail(existingUser.getEmail()) : e;
+        }
+        fireUpdated(existingUser);
+        return existingUser;
+    }
+
+    private VersionedUser versioned(UserEntity user) {
+        return new VersionedUser(userMapper.apply(user), user.getVersion());
+    }
+
+    /**
+     * Notifies the listeners once the surrounding transaction commits, if there is one, so that
+     * caches and indexes never serve a version that is not committed or is rolled back.
+     */
+    private void fireUpdated(UserEntity user) {
+        VersionedUser updatedUser = versioned(user);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changeListeners.forEach(listener -> listener.onUpdated(updatedUser));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changeListeners.forEach(listener -> listener.onUpdated(updatedUser));
+            }
+        });
     }
 
     @Override
     public boolean delete(Long id) {
-        UserEntity user = getOneById(id);
-        userRepository.delete(user);
+        if (userRepository.deleteOneById(id) == 0) {
+            throw notFound(id);
+        }
+        changeListeners.forEach(listener -> listener.onDeleted(id));
         return true;
     }
+
+    @Override
+    public int deleteAll(List<Long> ids, Date start, Date end) {
+        Date[] range = bulkFilter(ids, start, end);
+        return deleteAll(ids, range);
+    }
+
+    private int deleteAll(List<Long> ids, Date[] range) {
+        if (ids == null) {
+            int deleted = userRepository.deleteAllMatching(null, range[0], range[1]);
+            changeListeners.forEach(listener -> listener.onBulkChanged(null));
+            return deleted;
+        }
+        int deleted = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            deleted += userRepository.deleteAllMatching(chunk, range[0], range[1]);
+            changeListeners.forEach(listener -> listener.onBulkChanged(chunk));
+        }
+        return deleted;
+    }
+
+    @Override
+    public int updateAll(Map<String, JsonNode> fields, List<Long> ids, Date start, Date end) throws JsonProcessingException {
+        Date[] range = bulkFilter(ids, start, end);
+        if (fields.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No fields to update");
+        }
+        Map<UserField, Object> values = new EnumMap<>(UserField.class);
+        for (Map.Entry<String, JsonNode> entry : fields.entrySet()) {
+            UserField field = UserField.updatable(entry.getKey());
+            Object value = objectMapper.treeToValue(entry.getValue(), field.type());
+            validateValue(field, value);
+            if (field == UserField.BIRTH_DATE) {
+                ageVerification((Date) value);
+            }
+            values.put(field, value);
+        }
+        String email = (String) values.get(UserField.EMAIL);
+        if (email != null) {
+            verifyUniqueEmail(email, ids != null && ids.size() == 1 ? ids.get(0) : null);
+        }
+        int updated;
+        try {
+            updated = updateAll(values, ids, range);
+        } catch (DataIntegrityViolationException e) {
+            throw email != null && DataIntegrityViolations.isUniqueEmail(e) ? duplicateEmail(email) : e;
+        }
+        if (email != null) {
+            emailFilter.add(email);
+        }
+        return updated;
+    }
+
+    private int updateAll(Map<UserField, Object> values, List<Long> ids, Date[] range) {
+        if (ids == null) {
+            int updated = userRepository.updateAllMatching(values, null, range[0], range[1]);
+            changeListeners.forEach(listener -> listener.onBulkChanged(null));
+            return updated;
+        }
+        int updated = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            updated += userRepository.updateAllMatching(values, chunk, range[0], range[1]);
+            changeListeners.forEach(listener -> listener.onBulkChanged(chunk));
+        }
+        return updated;
+    }
+
+    private void validateValue(UserField field, Object value) {
+        Set<ConstraintViolation<UserDTO>> violations = validator.validateValue(UserDTO.class, field.fieldName(), value);
+        violations.stream()
+                .min(VIOLATION_ORDER)
+                .ifPresent(violation -> {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "The " + field.fieldName() + " field " + violation.getMessage());
+                });
+    }
+
+    private Date[] bulkFilter(List<Long> ids, Date start, Date end) {
+        boolean byBirthDate = isBirthDateRange(start, end);
+        if ((ids != null && ids.isEmpty()) || (ids == null && !byBirthDate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either ids or start and end dates are required");
+        }
+        return byBirthDate ? new Date[]{start, end} : new Date[2];
+    }
+
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += bulkIdChunkSize) {
+            chunks.add(ids.subList(i, Math.min(i + bulkIdChunkSize, ids.size())));
+        }
+        return chunks;
+    }
 }
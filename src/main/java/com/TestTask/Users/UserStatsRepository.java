@@ -0,0 +1,9 @@
+package com.TestTask.Users;
+
+import java.time.MonthDay;
+import java.util.List;
+
+public interface UserStatsRepository {
+
+    List<UserBirthYearCount> countByBirthYear(MonthDay today);
+}
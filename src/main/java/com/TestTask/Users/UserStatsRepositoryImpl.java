@@ -0,0 +1,29 @@
+package com.TestTask.Users;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.MonthDay;
+import java.util.List;
+
+public class UserStatsRepositoryImpl implements UserStatsRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Groups users by birth year and by whether their birthday has passed on {@code today}, which
+     * is all an exact age needs, in at most two rows per year. The date is inlined rather than
+     * bound, as the database must see the select and group by expressions as the same one.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserBirthYearCount> countByBirthYear(MonthDay today) {
+        String birthdayPassed = "case when month(u.birthDate) * 100 + day(u.birthDate) <= " +
+                (today.getMonthValue() * 100 + today.getDayOfMonth()) + " then true else false end";
+        return entityManager.createQuery("select new com.TestTask.Users.UserBirthYearCount(year(u.birthDate), " +
+                        birthdayPassed + ", count(u)) from UserEntity u group by year(u.birthDate), " + birthdayPassed,
+                UserBirthYearCount.class).getResultList();
+    }
+}
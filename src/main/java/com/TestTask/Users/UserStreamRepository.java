@@ -0,0 +1,13 @@
+package com.TestTask.Users;
+
+import java.sql.Date;
+import java.util.function.Consumer;
+
+public interface UserStreamRepository {
+
+    void forEach(Date start, Date end, Consumer<UserDTO> action);
+
+    void forEachBirthDate(Consumer<UserBirthDate> action);
+
+    void forEachEmail(Consumer<String> action);
+}
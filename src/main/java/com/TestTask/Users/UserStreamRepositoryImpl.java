@@ -0,0 +1,64 @@
+package com.TestTask.Users;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class UserStreamRepositoryImpl implements UserStreamRepository {
+
+    @Value("${user.export.fetchSize}")
+    private int fetchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Scrolls over the users with a JDBC fetch size. Rows are projected straight into
+     * {@link UserDTO}s, so nothing is added to the persistence context while streaming.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(Date start, Date end, Consumer<UserDTO> action) {
+        TypedQuery<UserDTO> query = start != null && end != null
+                ? entityManager.createQuery(UserRepository.SELECT_USER_DTO +
+                        "where u.birthDate between :start and :end order by u.birthDate, u.id", UserDTO.class)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                : entityManager.createQuery(UserRepository.SELECT_USER_DTO + "order by u.id", UserDTO.class);
+
+        try (Stream<UserDTO> users = query
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream()) {
+            users.forEach(action);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachBirthDate(Consumer<UserBirthDate> action) {
+        try (Stream<UserBirthDate> users = entityManager.createQuery(
+                        "select new com.TestTask.Users.UserBirthDate(u.id, u.birthDate) from UserEntity u " +
+                                "order by u.birthDate, u.id", UserBirthDate.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream()) {
+            users.forEach(action);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachEmail(Consumer<String> action) {
+        try (Stream<String> emails = entityManager.createQuery("select u.email from UserEntity u", String.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream()) {
+            emails.forEach(action);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.TestTask.Users;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Marks a deleted user for the change feed. Ids are never reused, so one tombstone per id is enough.
+ */
+@Entity
+@Table(name = "user_tombstones",
+        indexes = @Index(name = "idx_user_tombstones_deleted_at_id", columnList = "deleted_at, id"))
+public class UserTombstone {
+
+    public UserTombstone() {}
+
+    public UserTombstone(Long id, Instant deletedAt) {
+        this.id = id;
+        this.deletedAt = deletedAt;
+    }
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Instant deletedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+}
@@ -0,0 +1,211 @@
+package com.TestTask.Users;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind path for single creates. Callers enqueue a user and wait on a future, while one
+ * dispatcher thread drains the queue into multi-row transactions, committing every
+ * {@code user.writeBehind.batchSize} users or {@code user.writeBehind.maxDelay} after the first
+ * one, whichever comes first. A burst of creates thus costs one commit per batch instead of one
+ * per request. Enabled with {@code user.writeBehind.enabled}; a full queue is answered with 503.
+ */
+@Component
+@Profile("!reactive")
+public class UserWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(UserWriteBehind.class);
+
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final UserRepository userRepository;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final long maxDelayNanos;
+
+    private final BlockingQueue<PendingUser> queue;
+
+    private final DistributionSummary batchSizes;
+
+    private volatile boolean running;
+
+    // Held shared while enqueuing and exclusively while stopping, so nothing is enqueued once the dispatcher may exit
+    private final ReadWriteLock enqueueLock = new ReentrantReadWriteLock();
+
+    private Thread dispatcher;
+
+    public UserWriteBehind(UserRepository userRepository,
+                           @Value("${user.writeBehind.enabled}") boolean enabled,
+                           @Value("${user.writeBehind.queueCapacity}") int queueCapacity,
+                           @Value("${user.writeBehind.batchSize}") int batchSize,
+                           @Value("${user.writeBehind.maxDelay}") Duration maxDelay,
+                           MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder("users.writeBehind.batch.size")
+                .description("Users committed per write-behind transaction")
+                .register(meterRegistry);
+        Gauge.builder("users.writeBehind.pending", queue, BlockingQueue::size)
+                .description("Users waiting in the write-behind queue")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (enabled && dispatcher == null) {
+            running = true;
+            dispatcher = new Thread(this::dispatch, "user-write-behind");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+    }
+
+    /**
+     * Stops taking new users and waits for the dispatcher to commit the ones already queued.
+     */
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        enqueueLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            enqueueLock.writeLock().unlock();
+        }
+        if (dispatcher != null) {
+            dispatcher.join();
+            dispatcher = null;
+        }
+        List<PendingUser> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        fail(leftover, stopped());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a user for insertion. The supplier is called again if the user's batch fails, so it
+     * must return a new entity each time. The future completes with the inserted user once its
+     * batch commits, or exceptionally with the exception its own insert failed with.
+     */
+    public CompletableFuture<UserEntity> submit(Supplier<UserEntity> user) {
+        PendingUser pending = new PendingUser(user, new CompletableFuture<>());
+        enqueueLock.readLock().lock();
+        try {
+            if (!running || !queue.offer(pending)) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many pending writes");
+            }
+        } finally {
+            enqueueLock.readLock().unlock();
+        }
+        return pending.future();
+    }
+
+    private void dispatch() {
+        List<PendingUser> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingUser first = queue.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingUser next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                insert(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Throwable e) {
+                // Keeps the dispatcher alive, as no one else would complete the queued futures
+                log.error("Write-behind batch of {} users failed", batch.size(), e);
+                fail(batch, e);
+            } finally {
+                fail(batch, stopped());
+                batch.clear();
+            }
+        }
+    }
+
+    private static void fail(List<PendingUser> batch, Throwable e) {
+        batch.forEach(pending -> pending.future().completeExceptionally(e));
+    }
+
+    private static ResponseStatusException stopped() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Write-behind dispatcher stopped");
+    }
+
+    private void insert(List<PendingUser> pendingUsers) {
+        List<PendingUser> batch = new ArrayList<>(pendingUsers.size());
+        List<UserEntity> users = new ArrayList<>(pendingUsers.size());
+        for (PendingUser pending : pendingUsers) {
+            try {
+                users.add(pending.user().get());
+                batch.add(pending);
+            } catch (RuntimeException e) {
+                pending.future().completeExceptionally(e);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            userRepository.insertAll(users);
+            batchSizes.record(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future().complete(users.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future().completeExceptionally(e);
+                return;
+            }
+            // One bad row rolls back its whole batch, so retry row by row to fail only that row
+            log.debug("Write-behind batch of {} users failed, inserting them one by one", batch.size(), e);
+            for (PendingUser pending : batch) {
+                insert(List.of(pending));
+            }
+        }
+    }
+
+    private record PendingUser(Supplier<UserEntity> user, CompletableFuture<UserEntity> future) {}
+}
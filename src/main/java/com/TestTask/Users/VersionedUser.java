@@ -0,0 +1,15 @@
+package com.TestTask.Users;
+
+import java.sql.Date;
+
+/**
+ * A {@link UserDTO} together with the row version it was read or written at. {@code version} is
+ * {@code null} when a write did not report it.
+ */
+public record VersionedUser(UserDTO user, Long version) {
+
+    public VersionedUser(Long id, String email, String firstName, String lastName, Date birthDate, String address,
+                         String phoneNumber, Long version) {
+        this(new UserDTO(id, email, firstName, lastName, birthDate, address, phoneNumber), version);
+    }
+}
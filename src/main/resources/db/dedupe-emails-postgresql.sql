@@ -0,0 +1,21 @@
+-- One-off migration for databases created before uk_users_email_lower, run by hand before
+-- upgrading: psql -v ON_ERROR_STOP=1 -f dedupe-emails-postgresql.sql
+--
+-- For every group of emails that differ only in case, the user with the lowest id keeps its
+-- email. The others get a unique address tagged with their id, e.g. Anna+duplicate-42@gmail.com,
+-- so no user is lost and each can be followed up and corrected through PUT /api/users/{id}.
+-- The version and changed_at bumps make caches and the change feed pick the new emails up.
+
+BEGIN;
+
+SELECT id, email FROM users
+WHERE lower(email) IN (SELECT lower(email) FROM users GROUP BY lower(email) HAVING COUNT(*) > 1)
+ORDER BY lower(email), id;
+
+UPDATE users u
+SET email = split_part(u.email, '@', 1) || '+duplicate-' || u.id || '@' || split_part(u.email, '@', 2),
+    version = u.version + 1,
+    changed_at = now()
+WHERE EXISTS (SELECT 1 FROM users o WHERE lower(o.email) = lower(u.email) AND o.id < u.id);
+
+COMMIT;
@@ -0,0 +1,6 @@
+-- Run once per database by its owner or a superuser, before or after the first deployment:
+-- psql -v ON_ERROR_STOP=1 -d <database> -f provision-postgresql.sql
+-- The application role cannot usually install extensions, so schema-postgresql.sql only uses them.
+
+-- Trigram indexes for GET /api/users/search
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
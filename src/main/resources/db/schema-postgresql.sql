@@ -0,0 +1,33 @@
+-- Serve equality, prefix and substring matches of GET /api/users/search. Installing pg_trgm needs
+-- rights the application role usually lacks, so it is left to db/provision-postgresql.sql; until
+-- then search works without these indexes and startup only warns
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = ''pg_trgm'') THEN
+        CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_users_first_name_trgm ON users USING gin (lower(first_name) gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_users_last_name_trgm ON users USING gin (lower(last_name) gin_trgm_ops);
+    ELSE
+        RAISE WARNING ''pg_trgm is not installed, so user search scans the users table''
+            USING HINT = ''Run db/provision-postgresql.sql as the database owner and restart'';
+    END IF;
+END';
+
+-- Emails are unique regardless of case, as UserEmailFilter normalizes them. Databases created
+-- before this index may hold emails that differ only in case; startup stops until they are
+-- resolved with db/dedupe-emails-postgresql.sql, which is never run automatically
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_indexes WHERE tablename = ''users'' AND indexname = ''uk_users_email_lower'') THEN
+        IF EXISTS (SELECT 1 FROM users GROUP BY lower(email) HAVING COUNT(*) > 1) THEN
+            RAISE EXCEPTION ''Cannot create uk_users_email_lower: users holds emails that differ only in case''
+                USING HINT = ''Resolve them with db/dedupe-emails-postgresql.sql and restart'';
+        END IF;
+    END IF;
+END';
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_users_email_lower ON users (lower(email));
+
+-- ddl-auto creates users_seq at 1 on databases whose ids came from IDENTITY. Move it past the
+-- existing ids, and never backwards, as running instances may hold blocks above MAX(id)
+SELECT setval('users_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM users), (SELECT last_value FROM users_seq), 1));
@@ -0,0 +1,94 @@
+package com.TestTask.Exceptions;
+
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.reactive.result.method.annotation.ResponseEntityExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * The reactive counterpart of {@link CustomResponseEntityExceptionHandler}, rendering the same {@link ErrorDTO}s.
+ */
+@ControllerAdvice
+@Profile("reactive")
+public class ReactiveResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveResponseEntityExceptionHandler.class);
+
+    private static final String PACKAGE_PREFIX = "com.TestTask.Users.";
+
+    @Override
+    protected Mono<ResponseEntity<Object>> handleResponseStatusException(ResponseStatusException ex, HttpHeaders headers, HttpStatusCode status, ServerWebExchange exchange) {
+        ErrorTemplate template = ErrorTemplate.of(ex.getStatusCode());
+        String message = ex.getReason() != null ? ex.getReason() : template.error();
+        return Mono.just(ResponseEntity.status(template.status()).body(
+                template.toErrorDTO(message, path(exchange), List.of())));
+    }
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    protected ResponseEntity<ErrorDTO> handleEntityNotFoundException(RuntimeException ex, ServerWebExchange exchange) {
+        ErrorTemplate template = ErrorTemplate.NOT_FOUND;
+        String message = ex.getMessage().replace(PACKAGE_PREFIX, "");
+        return ResponseEntity.status(template.status()).body(
+                template.toErrorDTO(message, path(exchange), List.of()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    protected ResponseEntity<ErrorDTO> handleOptimisticLockingFailureException(RuntimeException ex, ServerWebExchange exchange) {
+        ErrorTemplate template = ErrorTemplate.PRECONDITION_FAILED;
+        return ResponseEntity.status(template.status()).body(
+                template.toErrorDTO("The user has been modified concurrently", path(exchange), List.of()));
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    protected ResponseEntity<ErrorDTO> handleDataIntegrityViolationException(RuntimeException ex, ServerWebExchange exchange) {
+        if (!DataIntegrityViolations.isUniqueEmail(ex)) {
+            // Not caused by the client's input as far as we know, so log it as a failure of ours
+            log.error("Data integrity violation on {}", path(exchange), ex);
+            ErrorTemplate template = ErrorTemplate.INTERNAL_SERVER_ERROR;
+            return ResponseEntity.status(template.status()).body(
+                    template.toErrorDTO(FieldErrors.DATA_INTEGRITY_MESSAGE, path(exchange), List.of()));
+        }
+        ErrorTemplate template = ErrorTemplate.CONFLICT;
+        return ResponseEntity.status(template.status()).body(
+                template.toErrorDTO(FieldErrors.UNIQUE_EMAIL_MESSAGE, path(exchange), List.of()));
+    }
+
+    @Override
+    protected Mono<ResponseEntity<Object>> handleWebExchangeBindException(WebExchangeBindException ex, HttpHeaders headers, HttpStatusCode status, ServerWebExchange exchange) {
+        ErrorTemplate template = ErrorTemplate.of(status);
+        return Mono.just(ResponseEntity.status(template.status()).body(
+                FieldErrors.toErrorDTO(template, ex.getBindingResult(), path(exchange))));
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    protected ResponseEntity<ErrorDTO> handleConstraintViolationException(ConstraintViolationException ex, ServerWebExchange exchange) {
+        return ResponseEntity.status(ErrorTemplate.BAD_REQUEST.status()).body(
+                FieldErrors.toErrorDTO(ex.getConstraintViolations(), ex.getMessage(), path(exchange)));
+    }
+
+    @ExceptionHandler(InvalidFormatException.class)
+    protected ResponseEntity<ErrorDTO> handleInvalidFormatException(InvalidFormatException ex, ServerWebExchange exchange) {
+        return ResponseEntity.status(ErrorTemplate.BAD_REQUEST.status()).body(
+                FieldErrors.toErrorDTO(ex, path(exchange)));
+    }
+
+    private static String path(ServerWebExchange exchange) {
+        return exchange.getRequest().getPath().value();
+    }
+}
@@ -0,0 +1,210 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.TestTask.Users.UserController.APPLICATION_NDJSON_VALUE;
+import static com.TestTask.Users.UserController.URI_USERS_BATCH;
+import static com.TestTask.Users.UserController.URI_USERS_EXPORT;
+import static com.TestTask.Users.UserController.URI_USERS_ID;
+
+/**
+ * The {@code /api/users} routes of {@link UserController} on WebFlux, active with the {@code reactive} profile.
+ * Lists are streamed from the database into the response as the client reads them.
+ */
+@RestController
+@RequestMapping("/api/users")
+@Profile("reactive")
+public class ReactiveUserController {
+
+    private static final byte[] PAGE_START = "{\"data\":[".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] SEPARATOR = {','};
+
+    private final ReactiveUserService userService;
+
+    private final UserMapper userMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter userWriter;
+
+    public ReactiveUserController(ReactiveUserService userService, UserMapper userMapper, ObjectMapper objectMapper) {
+        this.userService = userService;
+        this.userMapper = userMapper;
+        this.objectMapper = objectMapper;
+        this.userWriter = objectMapper.writerFor(UserDTO.class);
+    }
+
+    @GetMapping
+    public Mono<Void> getAllUsers(@RequestParam(required = false) Date start, @RequestParam(required = false) Date end,
+                                  @RequestParam(required = false) String after, @RequestParam(required = false) Integer limit,
+                                  ServerHttpResponse response) {
+        ReactiveUserPage page = userService.getAll(start, end, after, limit);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(write(page, response.bufferFactory()));
+    }
+
+    /**
+     * Writes the {@code {"data": [...], "next": ...}} envelope around the users as they arrive, so the page
+     * is never collected in memory and the database is read no faster than the client consumes.
+     */
+    private Flux<DataBuffer> write(ReactiveUserPage page, DataBufferFactory bufferFactory) {
+        return Flux.defer(() -> {
+            UserDTO[] last = new UserDTO[1];
+            String[] next = new String[1];
+            int[] count = {0};
+            Flux<DataBuffer> users = page.users().handle((user, sink) -> {
+                if (count[0] == page.limit()) {
+                    next[0] = UserCursor.of(last[0], page.byBirthDate()).encode();
+                    return;
+                }
+                try {
+                    byte[] json = userWriter.writeValueAsBytes(user);
+                    DataBuffer buffer = bufferFactory.allocateBuffer(json.length + 1);
+                    if (count[0]++ > 0) {
+                        buffer.write(SEPARATOR);
+                    }
+                    sink.next(buffer.write(json));
+                    last[0] = user;
+                } catch (JsonProcessingException e) {
+                    sink.error(e);
+                }
+            });
+            return Flux.concat(
+                    Mono.fromSupplier(() -> bufferFactory.wrap(PAGE_START)),
+                    users,
+                    Mono.fromCallable(() -> bufferFactory.wrap(
+                            ("],\"next\":" + objectMapper.writeValueAsString(next[0]) + "}").getBytes(StandardCharsets.UTF_8))));
+        });
+    }
+
+    @GetMapping(URI_USERS_EXPORT)
+    public ResponseEntity<Flux<UserDTO>> exportUsers(@RequestParam(required = false) Date start,
+                                                     @RequestParam(required = false) Date end) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(userService.export(start, end));
+    }
+
+    @GetMapping(URI_USERS_ID)
+    public Mono<ResponseEntity<?>> getUserById(@PathVariable Long id,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Mono<ResponseEntity<?>> user = userService.getOneVersionedById(id).map(versionedUser -> {
+            Map<String, UserDTO> response = new HashMap<>();
+            response.put("data", versionedUser.user());
+            return eTag(ResponseEntity.ok(), versionedUser.version()).body(response);
+        });
+        if (ifNoneMatch == null) {
+            return user;
+        }
+        return userService.getVersionById(id).flatMap(version -> UserETag.matches(ifNoneMatch, version)
+                ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(UserETag.of(version)).build())
+                : user);
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<?>> createUser(@RequestBody @Valid UserDTO userDTO) {
+        return userService.create(userDTO).map(createdUser -> {
+            Map<String, UserDTO> response = new HashMap<>();
+            response.put("data", userMapper.apply(createdUser));
+            return eTag(ResponseEntity.status(HttpStatus.CREATED), createdUser.getVersion()).body(response);
+        });
+    }
+
+    @PostMapping(URI_USERS_BATCH)
+    public Mono<ResponseEntity<?>> createUsers(@RequestBody List<UserDTO> userDTOs) {
+        return userService.createAll(userDTOs).map(batchResult -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("created", batchResult.created()
+                    .stream()
+                    .map(userMapper)
+                    .toList());
+            result.put("errors", batchResult.errors());
+            Map<String, Map<String, Object>> response = new HashMap<>();
+            response.put("data", result);
+            HttpStatus status = batchResult.created().isEmpty() && !batchResult.errors().isEmpty()
+                    ? HttpStatus.BAD_REQUEST
+                    : HttpStatus.CREATED;
+            return ResponseEntity.status(status).body(response);
+        });
+    }
+
+    @PutMapping(URI_USERS_ID)
+    public Mono<ResponseEntity<?>> updateUser(@PathVariable Long id, @RequestBody @Valid UserDTO userDTO,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return userService.update(id, userDTO, expectedVersion(ifMatch)).map(this::updated);
+    }
+
+    @PatchMapping(value = URI_USERS_ID, consumes = "application/json-patch+json")
+    public Mono<ResponseEntity<?>> partialUpdateUser(@PathVariable Long id, @RequestBody List<UserPatchOperation> operations,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return userService.partialUpdate(id, operations, expectedVersion(ifMatch)).map(this::updated);
+    }
+
+    private ResponseEntity<?> updated(UserEntity updatedUser) {
+        Map<String, UserDTO> response = new HashMap<>();
+        response.put("data", userMapper.apply(updatedUser));
+        return eTag(ResponseEntity.ok(), updatedUser.getVersion()).body(response);
+    }
+
+    private static Long expectedVersion(String ifMatch) {
+        return ifMatch == null ? null : UserETag.expectedVersion(ifMatch);
+    }
+
+    private static ResponseEntity.BodyBuilder eTag(ResponseEntity.BodyBuilder builder, Long version) {
+        return version == null ? builder : builder.eTag(UserETag.of(version));
+    }
+
+    @DeleteMapping(URI_USERS_ID)
+    public Mono<ResponseEntity<?>> deleteUser(@PathVariable Long id) {
+        return userService.delete(id).map(deleted -> {
+            Map<String, Map<String, String>> response = new HashMap<>();
+            Map<String, String> message = new HashMap<>();
+            message.put("message", "Successfully deleted");
+            response.put("data", message);
+            return ResponseEntity.ok(response);
+        });
+    }
+
+    @DeleteMapping
+    public Mono<ResponseEntity<?>> deleteUsers(@RequestParam(required = false) List<Long> ids,
+                                               @RequestParam(required = false) Date start, @RequestParam(required = false) Date end) {
+        return userService.deleteAll(ids, start, end).map(ReactiveUserController::affected);
+    }
+
+    @PatchMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<?>> updateUsers(@RequestParam(required = false) List<Long> ids,
+                                               @RequestParam(required = false) Date start, @RequestParam(required = false) Date end,
+                                               @RequestBody Map<String, JsonNode> fields) {
+        return userService.updateAll(fields, ids, start, end).map(ReactiveUserController::affected);
+    }
+
+    private static ResponseEntity<?> affected(int affected) {
+        Map<String, Map<String, Integer>> response = new HashMap<>();
+        Map<String, Integer> result = new HashMap<>();
+        result.put("affected", affected);
+        response.put("data", result);
+        return ResponseEntity.ok(response);
+    }
+}
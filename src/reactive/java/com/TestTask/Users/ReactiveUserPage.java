@@ -0,0 +1,9 @@
+package com.TestTask.Users;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * A page of users streamed from the database. {@code users} emits up to {@code limit + 1} users, the
+ * last one only telling that there is a next page; its cursor is built from the {@code limit}-th user.
+ */
+public record ReactiveUserPage(Flux<UserDTO> users, int limit, boolean byBirthDate) {}
@@ -0,0 +1,289 @@
+package com.TestTask.Users;
+
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Statement;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * R2DBC access to the {@code users} table mapped by {@link UserEntity}. Ids come from the same
+ * {@code users_seq} sequence; taking its next value directly never collides with the blocks
+ * Hibernate allocates from it.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveUserRepository {
+
+    private static final String USER_COLUMNS = "id, email, first_name, last_name, birth_date, address, phone_number";
+
+    private static final String SELECT_USER = "select " + USER_COLUMNS + " from users ";
+
+    private static final String INSERT_USER = "insert into users (" + USER_COLUMNS + ", version, changed_at) " +
+            "values (nextval('users_seq'), $1, $2, $3, $4, $5, $6, 0, $7)";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveUserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<UserDTO> findAll(UserCursor after, int limit) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(SELECT_USER +
+                        (after == null ? "" : "where id > :afterId ") + "order by id limit :limit")
+                .bind("limit", limit);
+        if (after != null) {
+            spec = spec.bind("afterId", after.id());
+        }
+        return spec.map(ReactiveUserRepository::userDTO).all();
+    }
+
+    public Flux<UserDTO> findAllByBirthDateBetween(Date start, Date end, UserCursor after, int limit) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(SELECT_USER + "where birth_date between :start and :end " +
+                        (after == null ? "" : "and (birth_date > :afterBirthDate or (birth_date = :afterBirthDate and id > :afterId)) ") +
+                        "order by birth_date, id limit :limit")
+                .bind("start", start.toLocalDate())
+                .bind("end", end.toLocalDate())
+                .bind("limit", limit);
+        if (after != null) {
+            spec = spec.bind("afterBirthDate", after.birthDate().toLocalDate()).bind("afterId", after.id());
+        }
+        return spec.map(ReactiveUserRepository::userDTO).all();
+    }
+
+    /**
+     * Streams all users, or those born between start and end, in the order of the matching index.
+     * Rows are pulled from the driver as the subscriber requests them.
+     */
+    public Flux<UserDTO> findAll(Date start, Date end) {
+        if (start == null || end == null) {
+            return databaseClient.sql(SELECT_USER + "order by id")
+                    .map(ReactiveUserRepository::userDTO)
+                    .all();
+        }
+        return databaseClient.sql(SELECT_USER + "where birth_date between :start and :end order by birth_date, id")
+                .bind("start", start.toLocalDate())
+                .bind("end", end.toLocalDate())
+                .map(ReactiveUserRepository::userDTO)
+                .all();
+    }
+
+    public Mono<UserEntity> findById(Long id) {
+        return databaseClient.sql("select " + USER_COLUMNS + ", version from users where id = :id")
+                .bind("id", id)
+                .map(row -> {
+                    UserDTO user = userDTO(row);
+                    UserEntity entity = new UserEntity(user.email(), user.firstName(), user.lastName(), user.birthDate(),
+                            user.address(), user.phoneNumber());
+                    entity.setId(user.id());
+                    entity.setVersion(row.get("version", Long.class));
+                    return entity;
+                })
+                .one();
+    }
+
+    public Mono<VersionedUser> findVersionedById(Long id) {
+        return databaseClient.sql("select " + USER_COLUMNS + ", version from users where id = :id")
+                .bind("id", id)
+                .map(row -> new VersionedUser(userDTO(row), row.get("version", Long.class)))
+                .one();
+    }
+
+    public Mono<Long> findVersionById(Long id) {
+        return databaseClient.sql("select version from users where id = :id")
+                .bind("id", id)
+                .map(row -> row.get("version", Long.class))
+                .one();
+    }
+
+    public Mono<Boolean> existsById(Long id) {
+        return databaseClient.sql("select 1 from users where id = :id")
+                .bind("id", id)
+                .map(row -> true)
+                .one()
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Inserts the users as one batched statement on a single connection and sets their generated ids
+     * and initial version.
+     */
+    public Flux<UserEntity> insertAll(List<UserEntity> users) {
+        if (users.isEmpty()) {
+            return Flux.empty();
+        }
+        Instant changedAt = Instant.now();
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(INSERT_USER).returnGeneratedValues("id");
+            for (int i = 0; i < users.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                UserEntity user = users.get(i);
+                statement.bind(0, user.getEmail())
+                        .bind(1, user.getFirstName())
+                        .bind(2, user.getLastName())
+                        .bind(3, user.getBirthDate().toLocalDate());
+                bind(statement, 4, user.getAddress());
+                bind(statement, 5, user.getPhoneNumber());
+                statement.bind(6, changedAt);
+            }
+            return Flux.from(statement.execute())
+                    .concatMap(result -> result.map(row -> row.get("id", Long.class)))
+                    .index()
+                    .map(generated -> {
+                        UserEntity user = users.get(generated.getT1().intValue());
+                        user.setId(generated.getT2());
+                        user.setVersion(0L);
+                        return user;
+                    });
+        });
+    }
+
+    public Mono<Integer> updateOneById(Long id, Long version, UserDTO user) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("update users set email = :email, " +
+                        "first_name = :firstName, last_name = :lastName, birth_date = :birthDate, address = :address, " +
+                        "phone_number = :phoneNumber, version = version + 1, changed_at = :changedAt " +
+                        "where id = :id" + (version == null ? "" : " and version = :version"))
+                .bind("id", id)
+                .bind("changedAt", Instant.now())
+                .bind("email", user.email())
+                .bind("firstName", user.firstName())
+                .bind("lastName", user.lastName())
+                .bind("birthDate", user.birthDate().toLocalDate());
+        spec = bind(spec, "address", user.address(), String.class);
+        spec = bind(spec, "phoneNumber", user.phoneNumber(), String.class);
+        if (version != null) {
+            spec = spec.bind("version", version);
+        }
+        return spec.fetch().rowsUpdated().map(Long::intValue);
+    }
+
+    /**
+     * Writes only the given fields of the user, provided its row is still at {@code user.getVersion()}.
+     */
+    public Mono<Integer> updateFieldsById(UserEntity user, Set<UserField> fields) {
+        StringJoiner assignments = new StringJoiner(", ", "update users set ", ", version = version + 1, changed_at = :changedAt ");
+        fields.forEach(field -> assignments.add(column(field) + " = :" + field.fieldName()));
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(assignments + "where id = :id and version = :version")
+                .bind("id", user.getId())
+                .bind("changedAt", Instant.now())
+                .bind("version", user.getVersion());
+        for (UserField field : fields) {
+            spec = bind(spec, field.fieldName(), field.value(user), field.type());
+        }
+        return spec.fetch().rowsUpdated().map(Long::intValue);
+    }
+
+    public Mono<Integer> deleteOneById(Long id) {
+        return deleteAllMatching(List.of(id), null, null);
+    }
+
+    /**
+     * Leaves tombstones for the change feed, then deletes exactly the tombstoned users, so a user
+     * moved into range in between is not deleted without a tombstone. The statements run outside a
+     * transaction like the rest of this repository, so a failed delete can leave a tombstone for a
+     * user that still exists; consumers then see it deleted and recreated by its next change.
+     */
+    public Mono<Integer> deleteAllMatching(Collection<Long> ids, Date start, Date end) {
+        // Truncated to the column's precision, as the tombstones are matched by equality
+        Instant deletedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        return matching(databaseClient.sql("insert into user_tombstones (id, deleted_at) " +
+                        "select id, :deletedAt from users" + where(ids, start, end)), ids, start, end)
+                .bind("deletedAt", deletedAt)
+                .fetch()
+                .rowsUpdated()
+                .then(databaseClient.sql("delete from users " +
+                                "where id in (select id from user_tombstones where deleted_at = :deletedAt)")
+                        .bind("deletedAt", deletedAt)
+                        .fetch()
+                        .rowsUpdated()
+                        .map(Long::intValue));
+    }
+
+    public Mono<Integer> updateAllMatching(Map<UserField, Object> values, Collection<Long> ids, Date start, Date end) {
+        StringJoiner assignments = new StringJoiner(", ", "update users set ", ", version = version + 1, changed_at = :changedAt");
+        values.keySet().forEach(field -> assignments.add(column(field) + " = :" + field.fieldName()));
+        DatabaseClient.GenericExecuteSpec spec = matching(databaseClient.sql(assignments + where(ids, start, end)), ids, start, end)
+                .bind("changedAt", Instant.now());
+        for (Map.Entry<UserField, Object> entry : values.entrySet()) {
+            spec = bind(spec, entry.getKey().fieldName(), entry.getValue(), entry.getKey().type());
+        }
+        return spec.fetch().rowsUpdated().map(Long::intValue);
+    }
+
+    private static String where(Collection<Long> ids, Date start, Date end) {
+        List<String> predicates = new ArrayList<>(2);
+        if (ids != null) {
+            predicates.add("id in (:ids)");
+        }
+        if (start != null && end != null) {
+            predicates.add("birth_date between :start and :end");
+        }
+        return predicates.isEmpty() ? "" : " where " + String.join(" and ", predicates);
+    }
+
+    private static DatabaseClient.GenericExecuteSpec matching(DatabaseClient.GenericExecuteSpec spec, Collection<Long> ids,
+                                                              Date start, Date end) {
+        if (ids != null) {
+            spec = spec.bind("ids", ids);
+        }
+        if (start != null && end != null) {
+            spec = spec.bind("start", start.toLocalDate()).bind("end", end.toLocalDate());
+        }
+        return spec;
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name, Object value,
+                                                          Class<?> type) {
+        if (value == null) {
+            return spec.bindNull(name, type == Date.class ? LocalDate.class : type);
+        }
+        return spec.bind(name, value instanceof Date date ? date.toLocalDate() : value);
+    }
+
+    private static void bind(Statement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index, String.class);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+
+    private static String column(UserField field) {
+        return switch (field) {
+            case ID -> "id";
+            case EMAIL -> "email";
+            case FIRST_NAME -> "first_name";
+            case LAST_NAME -> "last_name";
+            case BIRTH_DATE -> "birth_date";
+            case ADDRESS -> "address";
+            case PHONE_NUMBER -> "phone_number";
+        };
+    }
+
+    private static UserDTO userDTO(Readable row) {
+        LocalDate birthDate = row.get("birth_date", LocalDate.class);
+        return new UserDTO(
+                row.get("id", Long.class),
+                row.get("email", String.class),
+                row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                birthDate == null ? null : Date.valueOf(birthDate),
+                row.get("address", String.class),
+                row.get("phone_number", String.class));
+    }
+}
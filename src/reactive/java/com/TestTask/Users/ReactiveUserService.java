@@ -0,0 +1,37 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The non-blocking counterpart of {@link UserService}, with the same validation and error semantics.
+ */
+public interface ReactiveUserService {
+
+    ReactiveUserPage getAll(Date start, Date end, String after, Integer limit);
+
+    Flux<UserDTO> export(Date start, Date end);
+
+    Mono<VersionedUser> getOneVersionedById(Long id);
+
+    Mono<Long> getVersionById(Long id);
+
+    Mono<UserEntity> create(UserDTO userDTO);
+
+    Mono<UserBatchResult> createAll(List<UserDTO> userDTOs);
+
+    Mono<UserEntity> update(Long id, UserDTO userDTO, Long expectedVersion);
+
+    Mono<UserEntity> partialUpdate(Long id, List<UserPatchOperation> operations, Long expectedVersion);
+
+    Mono<Boolean> delete(Long id);
+
+    Mono<Integer> deleteAll(List<Long> ids, Date start, Date end);
+
+    Mono<Integer> updateAll(Map<String, JsonNode> fields, List<Long> ids, Date start, Date end);
+}
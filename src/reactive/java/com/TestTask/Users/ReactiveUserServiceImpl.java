@@ -0,0 +1,323 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@Profile("reactive")
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    // A null value violates both NotNull and NotBlank, report it as missing
+    private static final Comparator<ConstraintViolation<?>> VIOLATION_ORDER = Comparator
+            .<ConstraintViolation<?>, Boolean>comparing(violation ->
+                    !(violation.getConstraintDescriptor().getAnnotation() instanceof NotNull))
+            .thenComparing(ConstraintViolation::getMessage);
+
+    @Value("${user.permittedAge}")
+    private int permittedAge;
+
+    @Value("${user.page.defaultLimit}")
+    private int defaultPageLimit;
+
+    @Value("${user.page.maxLimit}")
+    private int maxPageLimit;
+
+    @Value("${user.batch.chunkSize}")
+    private int batchChunkSize;
+
+    @Value("${user.batch.maxSize}")
+    private int maxBatchSize;
+
+    @Value("${user.bulk.idChunkSize}")
+    private int bulkIdChunkSize;
+
+    private final ReactiveUserRepository userRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    public ReactiveUserServiceImpl(ReactiveUserRepository userRepository, ObjectMapper objectMapper, Validator validator) {
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    @Override
+    public ReactiveUserPage getAll(Date start, Date end, String after, Integer limit) {
+        int pageLimit = limit == null ? defaultPageLimit : limit;
+        if (pageLimit < 1 || pageLimit > maxPageLimit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + maxPageLimit);
+        }
+        boolean byBirthDate = isBirthDateRange(start, end);
+        UserCursor cursor = after == null ? null : UserCursor.decode(after, byBirthDate);
+        Flux<UserDTO> users = byBirthDate
+                ? userRepository.findAllByBirthDateBetween(start, end, cursor, pageLimit + 1)
+                : userRepository.findAll(cursor, pageLimit + 1);
+        return new ReactiveUserPage(users, pageLimit, byBirthDate);
+    }
+
+    @Override
+    public Flux<UserDTO> export(Date start, Date end) {
+        if (isBirthDateRange(start, end)) {
+            return userRepository.findAll(start, end);
+        }
+        return userRepository.findAll(null, null);
+    }
+
+    private boolean isBirthDateRange(Date start, Date end) {
+        if (start != null && end != null) {
+            if (start.before(end)) {
+                return true;
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Start date greater than end date");
+        }
+        return false;
+    }
+
+    private EntityNotFoundException notFound(Long id) {
+        return new EntityNotFoundException("Unable to find UserEntity with id " + id);
+    }
+
+    private ResponseStatusException modified(Long id) {
+        return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "UserEntity with id " + id + " has been modified");
+    }
+
+    @Override
+    public Mono<VersionedUser> getOneVersionedById(Long id) {
+        return userRepository.findVersionedById(id).switchIfEmpty(Mono.error(() -> notFound(id)));
+    }
+
+    @Override
+    public Mono<Long> getVersionById(Long id) {
+        return userRepository.findVersionById(id).switchIfEmpty(Mono.error(() -> notFound(id)));
+    }
+
+    @Override
+    public Mono<UserEntity> create(UserDTO userDTO) {
+        return Mono.defer(() -> {
+            ageVerification(userDTO.birthDate());
+            return userRepository.insertAll(List.of(newUser(userDTO))).single();
+        });
+    }
+
+    @Override
+    public Mono<UserBatchResult> createAll(List<UserDTO> userDTOs) {
+        if (userDTOs.size() > maxBatchSize) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch size must not exceed " + maxBatchSize));
+        }
+        List<UserEntity> valid = new ArrayList<>(userDTOs.size());
+        List<UserBatchError> errors = new ArrayList<>();
+        for (int i = 0; i < userDTOs.size(); i++) {
+            String error = validate(userDTOs.get(i));
+            if (error != null) {
+                errors.add(new UserBatchError(i, error));
+            } else {
+                valid.add(newUser(userDTOs.get(i)));
+            }
+        }
+        return Flux.fromIterable(chunks(valid, batchChunkSize))
+                .concatMap(userRepository::insertAll)
+                .collectList()
+                .map(created -> new UserBatchResult(created, errors));
+    }
+
+    private String validate(UserDTO userDTO) {
+        if (userDTO == null) {
+            return "The user must not be null";
+        }
+        Set<ConstraintViolation<UserDTO>> violations = validator.validate(userDTO);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> "The " + violation.getPropertyPath() + " field " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        try {
+            ageVerification(userDTO.birthDate());
+        } catch (ResponseStatusException e) {
+            return e.getReason();
+        }
+        return null;
+    }
+
+    private UserEntity newUser(UserDTO userDTO) {
+        return new UserEntity(userDTO.email(), userDTO.firstName(), userDTO.lastName(), userDTO.birthDate(),
+                userDTO.address(), userDTO.phoneNumber());
+    }
+
+    public void ageVerification(Date userBirthDate) {
+        java.util.Date currentDate = new java.util.Date();
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(currentDate);
+        calendar.add(Calendar.YEAR, -permittedAge);
+        if (userBirthDate.after(calendar.getTime())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You cannot use this service, because you're under " + permittedAge);
+        }
+    }
+
+    @Override
+    public Mono<UserEntity> update(Long id, UserDTO userDTO, Long expectedVersion) {
+        try {
+            ageVerification(userDTO.birthDate());
+        } catch (ResponseStatusException e) {
+            return userRepository.existsById(id).flatMap(exists -> Mono.error(exists ? e : notFound(id)));
+        }
+        return userRepository.updateOneById(id, expectedVersion, userDTO).flatMap(updated -> {
+            if (updated == 0) {
+                if (expectedVersion == null) {
+                    return Mono.error(notFound(id));
+                }
+                return userRepository.existsById(id).flatMap(exists -> Mono.error(exists ? modified(id) : notFound(id)));
+            }
+            UserEntity updatedUser = newUser(userDTO);
+            updatedUser.setId(id);
+            // A blind update does not learn the new version without another round trip
+            updatedUser.setVersion(expectedVersion == null ? null : expectedVersion + 1);
+            return Mono.just(updatedUser);
+        });
+    }
+
+    @Override
+    public Mono<UserEntity> partialUpdate(Long id, List<UserPatchOperation> operations, Long expectedVersion) {
+        UserPatch patch;
+        try {
+            patch = UserPatch.compile(operations, objectMapper);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        return userRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> notFound(id)))
+                .flatMap(existingUser -> {
+                    if (expectedVersion != null && !expectedVersion.equals(existingUser.getVersion())) {
+                        return Mono.error(modified(id));
+                    }
+                    Map<UserField, Object> original = new EnumMap<>(UserField.class);
+                    for (UserField field : UserField.values()) {
+                        original.put(field, field.value(existingUser));
+                    }
+                    Set<UserField> changed = patch.apply(existingUser);
+                    if (changed.contains(UserField.BIRTH_DATE) && existingUser.getBirthDate() != null) {
+                        ageVerification(existingUser.getBirthDate());
+                    }
+                    for (UserField field : changed) {
+                        validateValue(field, field.value(existingUser));
+                    }
+                    // Like a dynamic update, write only the fields whose value actually changed
+                    Set<UserField> dirty = EnumSet.noneOf(UserField.class);
+                    for (UserField field : changed) {
+                        if (!Objects.equals(original.get(field), field.value(existingUser))) {
+                            dirty.add(field);
+                        }
+                    }
+                    if (dirty.isEmpty()) {
+                        return Mono.just(existingUser);
+                    }
+                    return userRepository.updateFieldsById(existingUser, dirty).flatMap(updated -> {
+                        if (updated == 0) {
+                            return Mono.error(new OptimisticLockingFailureException(
+                                    "UserEntity with id " + id + " has been modified concurrently"));
+                        }
+                        existingUser.setVersion(existingUser.getVersion() + 1);
+                        return Mono.just(existingUser);
+                    });
+                });
+    }
+
+    @Override
+    public Mono<Boolean> delete(Long id) {
+        return userRepository.deleteOneById(id)
+                .flatMap(deleted -> deleted == 0 ? Mono.error(notFound(id)) : Mono.just(true));
+    }
+
+    @Override
+    public Mono<Integer> deleteAll(List<Long> ids, Date start, Date end) {
+        Date[] range = bulkFilter(ids, start, end);
+        if (ids == null) {
+            return userRepository.deleteAllMatching(null, range[0], range[1]);
+        }
+        return Flux.fromIterable(chunks(ids, bulkIdChunkSize))
+                .concatMap(chunk -> userRepository.deleteAllMatching(chunk, range[0], range[1]))
+                .reduce(0, Integer::sum);
+    }
+
+    @Override
+    public Mono<Integer> updateAll(Map<String, JsonNode> fields, List<Long> ids, Date start, Date end) {
+        Date[] range = bulkFilter(ids, start, end);
+        if (fields.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No fields to update");
+        }
+        Map<UserField, Object> values = new EnumMap<>(UserField.class);
+        for (Map.Entry<String, JsonNode> entry : fields.entrySet()) {
+            UserField field = UserField.updatable(entry.getKey());
+            Object value;
+            try {
+                value = objectMapper.treeToValue(entry.getValue(), field.type());
+            } catch (JsonProcessingException e) {
+                return Mono.error(e);
+            }
+            validateValue(field, value);
+            if (field == UserField.BIRTH_DATE) {
+                ageVerification((Date) value);
+            }
+            values.put(field, value);
+        }
+        if (ids == null) {
+            return userRepository.updateAllMatching(values, null, range[0], range[1]);
+        }
+        return Flux.fromIterable(chunks(ids, bulkIdChunkSize))
+                .concatMap(chunk -> userRepository.updateAllMatching(values, chunk, range[0], range[1]))
+                .reduce(0, Integer::sum);
+    }
+
+    private void validateValue(UserField field, Object value) {
+        Set<ConstraintViolation<UserDTO>> violations = validator.validateValue(UserDTO.class, field.fieldName(), value);
+        violations.stream()
+                .min(VIOLATION_ORDER)
+                .ifPresent(violation -> {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "The " + field.fieldName() + " field " + violation.getMessage());
+                });
+    }
+
+    private Date[] bulkFilter(List<Long> ids, Date start, Date end) {
+        boolean byBirthDate = isBirthDateRange(start, end);
+        if ((ids != null && ids.isEmpty()) || (ids == null && !byBirthDate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either ids or start and end dates are required");
+        }
+        return byBirthDate ? new Date[]{start, end} : new Date[2];
+    }
+
+    private static <T> List<List<T>> chunks(List<T> items, int chunkSize) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += chunkSize) {
+            chunks.add(items.subList(i, Math.min(i + chunkSize, items.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,25 @@
+-- The schema Hibernate generates for UserEntity, for embedded databases started with the reactive profile
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT NOT NULL PRIMARY KEY,
+    email VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    birth_date DATE NOT NULL,
+    address VARCHAR(255),
+    phone_number VARCHAR(255),
+    version BIGINT DEFAULT 0 NOT NULL,
+    changed_at TIMESTAMP(6) WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE INDEX IF NOT EXISTS idx_users_birth_date_id ON users (birth_date, id);
+CREATE INDEX IF NOT EXISTS idx_users_changed_at_id ON users (changed_at, id);
+
+CREATE TABLE IF NOT EXISTS user_tombstones (
+    id BIGINT NOT NULL PRIMARY KEY,
+    deleted_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_tombstones_deleted_at_id ON user_tombstones (deleted_at, id);
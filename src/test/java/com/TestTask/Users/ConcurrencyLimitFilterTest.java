@@ -0,0 +1,45 @@
+package com.TestTask.Users;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = UserController.class, properties = {
+        "user.concurrency.maxRequests=0",
+        "user.concurrency.acquireTimeout=10ms"})
+@ComponentScan("com.TestTask.Users")
+@Import(SimpleMeterRegistry.class)
+class ConcurrencyLimitFilterTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @Test
+    void givenNoFreePermits_whenGetUserById_thenReturnServiceUnavailableError() throws Exception {
+        mvc.perform(get("/api/users/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.error").value(HttpStatus.SERVICE_UNAVAILABLE.name()))
+                .andExpect(jsonPath("$.message").value("Too many concurrent requests"))
+                .andExpect(jsonPath("$.path").value("/api/users/1"));
+        verify(userRepository, never()).findVersionedById(any());
+    }
+}
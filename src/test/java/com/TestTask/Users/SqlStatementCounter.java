@@ -0,0 +1,35 @@
+package com.TestTask.Users;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Counts the SQL statements Hibernate prepares, except sequence calls: ids come from a pooled
+ * sequence shared by the whole test context, so whether an insert also fetches a new block
+ * depends on the tests that ran before it.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final Pattern SEQUENCE_CALL = Pattern.compile("(?i).*\\b(next value for|nextval\\s*\\().*",
+            Pattern.DOTALL);
+
+    private static final AtomicLong count = new AtomicLong();
+
+    static void reset() {
+        count.set(0);
+    }
+
+    static long count() {
+        return count.get();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (!SEQUENCE_CALL.matcher(sql).matches()) {
+            count.incrementAndGet();
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,71 @@
+package com.TestTask.Users;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Compares rows/sec of POST /api/users/batch against calling POST /api/users in a loop.
+ * Run with {@code mvn test -Dtest=UserBatchThroughputTest -Dbenchmark=true}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserBatchThroughputTest {
+
+    private static final int ROWS = 20_000;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void compareBatchCreateWithSingleCreateLoop() throws Exception {
+        long singleStart = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            mvc.perform(post("/api/users")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(user("single" + i)))
+                    .andExpect(status().isCreated());
+        }
+        double singleRowsPerSecond = ROWS / ((System.nanoTime() - singleStart) / 1e9);
+
+        StringJoiner body = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < ROWS; i++) {
+            body.add(user("batch" + i));
+        }
+        long batchStart = System.nanoTime();
+        mvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body.toString()))
+                .andExpect(status().isCreated());
+        double batchRowsPerSecond = ROWS / ((System.nanoTime() - batchStart) / 1e9);
+
+        System.out.printf("single create: %.0f rows/sec, batch create: %.0f rows/sec (%.1fx)%n",
+                singleRowsPerSecond, batchRowsPerSecond, batchRowsPerSecond / singleRowsPerSecond);
+        assertThat(userRepository.count()).isEqualTo(2L * ROWS);
+    }
+
+    private static String user(String name) {
+        return "{" +
+                "\"email\": \"" + name + "@gmail.com\", " +
+                "\"firstName\": \"" + name + "\", " +
+                "\"lastName\": \"user\", " +
+                "\"birthDate\": \"1990-01-01\"" +
+                "}";
+    }
+}
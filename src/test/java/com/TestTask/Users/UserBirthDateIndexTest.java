@@ -0,0 +1,125 @@
+package com.TestTask.Users;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "user.birthDateIndex.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserBirthDateIndexTest {
+
+    public static final String URI_USERS = "/api/users";
+    public static final Date START = Date.valueOf("1960-01-01");
+    public static final Date END = Date.valueOf("1960-12-31");
+    public static final Date MOVED = Date.valueOf("1970-06-01");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserBirthDateIndex birthDateIndex;
+
+    private List<UserEntity> users;
+
+    @BeforeEach
+    void init() {
+        userRepository.deleteAllMatching(null, START, END);
+        userRepository.deleteAllMatching(null, MOVED, MOVED);
+        users = userRepository.insertAll(List.of(
+                new UserEntity("march@gmail.com", "index", "user", Date.valueOf("1960-03-01")),
+                new UserEntity("january@gmail.com", "index", "user", Date.valueOf("1960-01-15")),
+                new UserEntity("june@gmail.com", "index", "user", Date.valueOf("1960-06-01"))));
+        birthDateIndex.rebuild();
+    }
+
+    @Test
+    void givenRebuiltIndex_whenFindEntries_thenReturnEntriesOrderedByBirthDate() {
+        assertThat(birthDateIndex.isReady()).isTrue();
+        assertThat(birthDateIndex.findEntries(START, END, null, 10)).extracting(UserCursor::id)
+                .containsExactly(users.get(1).getId(), users.get(0).getId(), users.get(2).getId());
+        assertThat(birthDateIndex.findEntries(START, END, new UserCursor(Date.valueOf("1960-01-15"), users.get(1).getId()), 1))
+                .containsExactly(new UserCursor(Date.valueOf("1960-03-01"), users.get(0).getId()));
+        assertThat(birthDateIndex.stats().size()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    void givenRebuiltIndex_whenGetAllUsersByBirthDate_thenPageThroughIndex() throws Exception {
+        String next = new UserCursor(Date.valueOf("1960-01-15"), users.get(1).getId()).encode();
+
+        mvc.perform(get(URI_USERS + "?start=" + START + "&end=" + END + "&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].email").value("january@gmail.com"))
+                .andExpect(jsonPath("$.next").value(next));
+        mvc.perform(get(URI_USERS + "?start=" + START + "&end=" + END + "&limit=5&after=" + next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].email").value("march@gmail.com"))
+                .andExpect(jsonPath("$.data[1].email").value("june@gmail.com"));
+    }
+
+    @Test
+    void givenIndexedUserDeletedBehindIndex_whenGetAllUsersByBirthDate_thenKeepPaging() throws Exception {
+        // Deleted through the repository, so the index still holds the user
+        userRepository.deleteAllMatching(List.of(users.get(1).getId()), null, null);
+        String next = new UserCursor(Date.valueOf("1960-01-15"), users.get(1).getId()).encode();
+
+        mvc.perform(get(URI_USERS + "?start=" + START + "&end=" + END + "&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(0))
+                .andExpect(jsonPath("$.next").value(next));
+        mvc.perform(get(URI_USERS + "?start=" + START + "&end=" + END + "&limit=1&after=" + next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].email").value("march@gmail.com"));
+    }
+
+    @Test
+    void givenRebuiltIndex_whenUsersChange_thenKeepIndexInSync() throws Exception {
+        mvc.perform(post(URI_USERS)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("february@gmail.com", "1960-02-01")))
+                .andExpect(status().isCreated());
+        mvc.perform(put(URI_USERS + "/" + users.get(2).getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("june@gmail.com", MOVED.toString())))
+                .andExpect(status().isOk());
+        mvc.perform(delete(URI_USERS + "/" + users.get(1).getId()))
+                .andExpect(status().isOk());
+        mvc.perform(patch(URI_USERS + "?ids=" + users.get(0).getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"birthDate\": \"1960-12-01\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get(URI_USERS + "?start=" + START + "&end=" + END))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].email").value("february@gmail.com"))
+                .andExpect(jsonPath("$.data[1].email").value("march@gmail.com"))
+                .andExpect(jsonPath("$.data[1].birthDate").value("1960-12-01"));
+    }
+
+    private static String body(String email, String birthDate) {
+        return "{" +
+                "\"email\": \"" + email + "\", " +
+                "\"firstName\": \"index\", " +
+                "\"lastName\": \"user\", " +
+                "\"birthDate\": \"" + birthDate + "\"" +
+                "}";
+    }
+}
@@ -0,0 +1,139 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserChangeFeedTest {
+
+    public static final String URI_USERS = "/api/users";
+    public static final String URI_CHANGES = "/api/users/changes";
+    public static final Date START = Date.valueOf("1962-01-01");
+    public static final Date END = Date.valueOf("1962-12-31");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String since;
+
+    @BeforeEach
+    void init() throws Exception {
+        userRepository.deleteAllMatching(null, START, END);
+        since = drain(null, new ArrayList<>());
+    }
+
+    @Test
+    void givenWrites_whenGetChanges_thenReturnLatestStateAndTombstonesInChangeOrder() throws Exception {
+        long kept = create("kept@gmail.com");
+        long deleted = create("deleted@gmail.com");
+        mvc.perform(patch(URI_USERS + "/" + kept)
+                        .contentType("application/json-patch+json")
+                        .content("[{\"op\": \"replace\", \"path\": \"/address\", \"value\": \"NY\"}]"))
+                .andExpect(status().isOk());
+        mvc.perform(delete(URI_USERS + "/" + deleted)).andExpect(status().isOk());
+
+        List<JsonNode> changes = new ArrayList<>();
+        drain(since, changes);
+
+        assertThat(changes).hasSize(2);
+        assertThat(changes.get(0).get("id").asLong()).isEqualTo(kept);
+        assertThat(changes.get(0).get("deleted").asBoolean()).isFalse();
+        assertThat(changes.get(0).at("/user/address").asText()).isEqualTo("NY");
+        assertThat(changes.get(1).get("id").asLong()).isEqualTo(deleted);
+        assertThat(changes.get(1).get("deleted").asBoolean()).isTrue();
+        assertThat(changes.get(1).has("user")).isFalse();
+    }
+
+    @Test
+    void givenBulkWrites_whenGetChangesPageByPage_thenReturnEachChangeOnce() throws Exception {
+        long first = create("bulk1@gmail.com");
+        long second = create("bulk2@gmail.com");
+        mvc.perform(put(URI_USERS + "/" + first)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("bulk1@gmail.com", "1962-02-01")))
+                .andExpect(status().isOk());
+        mvc.perform(patch(URI_USERS + "?start=" + START + "&end=" + END)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"address\": \"Kyiv\"}"))
+                .andExpect(status().isOk());
+        mvc.perform(delete(URI_USERS + "?start=" + START + "&end=" + END)).andExpect(status().isOk());
+
+        List<JsonNode> changes = new ArrayList<>();
+        String next = since;
+        for (int page = 0; page < 10; page++) {
+            JsonNode body = getChanges(next, 1);
+            next = body.get("next").asText();
+            if (body.get("data").isEmpty()) {
+                break;
+            }
+            body.get("data").forEach(changes::add);
+        }
+
+        assertThat(changes).extracting(change -> change.get("id").asLong()).containsExactlyInAnyOrder(first, second);
+        assertThat(changes).allMatch(change -> change.get("deleted").asBoolean());
+        assertThat(getChanges(next, 1).get("next").asText()).isEqualTo(next);
+    }
+
+    @Test
+    void whenGetChangesWithInvalidToken_thenReturnBadRequest() throws Exception {
+        mvc.perform(get(URI_CHANGES + "?since=invalid"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor invalid"));
+    }
+
+    private String drain(String since, List<JsonNode> changes) throws Exception {
+        JsonNode page = getChanges(since, 1000);
+        while (true) {
+            page.get("data").forEach(changes::add);
+            if (page.get("data").size() < 1000) {
+                return page.get("next").asText();
+            }
+            page = getChanges(page.get("next").asText(), 1000);
+        }
+    }
+
+    private JsonNode getChanges(String since, int limit) throws Exception {
+        String body = mvc.perform(get(URI_CHANGES + "?limit=" + limit + (since == null ? "" : "&since=" + since)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private long create(String email) throws Exception {
+        String body = mvc.perform(post(URI_USERS)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(email, "1962-06-01")))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).at("/data/id").asLong();
+    }
+
+    private static String body(String email, String birthDate) {
+        return "{\"email\": \"" + email + "\", \"firstName\": \"a\", \"lastName\": \"b\", \"birthDate\": \"" + birthDate + "\"}";
+    }
+}
@@ -1,5 +1,8 @@
 package com.TestTask.Users;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,28 +11,51 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.IOException;
 import java.sql.Date;
 import java.util.Calendar;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(UserController.class)
 @ComponentScan("com.TestTask.Users")
+@Import(SimpleMeterRegistry.class)
 class UserControllerTest {
 
     public static final String URI_USERS = "/api/users";
     public static final Long ID = 1L;
+    public static final Long VERSION = 3L;
     public static final String URI_USERS_ID = URI_USERS + "/" + ID;
     public static final String EMAIL = "test@gmail.com";
     public static final String FIRST_NAME = "test";
@@ -46,25 +72,43 @@ class UserControllerTest {
     public static final String MESSAGE_BAD_REQUEST_WITH_BELOW_ALLOWED_AGE = "You cannot use this service, because you're under %s";
     public static final String MESSAGE_BAD_REQUEST_WITH_INVALID_FORMAT = "Failed to read request";
     public static final String MESSAGE_BAD_REQUEST_WITH_FUTURE_DATE_IN_DATE_FIELD = "The %s field must be a past date";
+    public static final String MESSAGE_BAD_REQUEST_WITH_INVALID_VALUE = "The %s field has invalid value '%s'";
 
     @Value("${user.permittedAge}")
     private int permittedAge;
 
+    @Value("${user.page.maxLimit}")
+    private int maxPageLimit;
+
     @Autowired
     private MockMvc mvc;
 
     @MockBean
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserFormats formats;
+
     @BeforeEach
     void init() {
         user = new UserEntity(EMAIL, FIRST_NAME, LAST_NAME, BIRTH_DATE);
+        user.setId(ID);
+        userCache.invalidateAll();
     }
 
     @Test
     void givenUsers_whenGetAllUsers_thenReturnJsonArray() throws Exception {
-        List<UserEntity> allUsers = List.of(user);
-        given(userRepository.findAll()).willReturn(allUsers);
+        List<UserDTO> allUsers = List.of(userMapper.apply(user));
+        given(userRepository.findAllDtos(any(Limit.class))).willReturn(allUsers);
 
         mvc.perform(get(URI_USERS))
                 .andExpect(status().isOk())
@@ -73,7 +117,66 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.data[0].email").value(EMAIL))
                 .andExpect(jsonPath("$.data[0].firstName").value(FIRST_NAME))
                 .andExpect(jsonPath("$.data[0].lastName").value(LAST_NAME))
-                .andExpect(jsonPath("$.data[0].birthDate").value(BIRTH_DATE.toString()));
+                .andExpect(jsonPath("$.data[0].birthDate").value(BIRTH_DATE.toString()))
+                .andExpect(jsonPath("$.next").isEmpty())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string("{\"next\":null,\"data\":[{\"id\":" + ID + ",\"email\":\"" + EMAIL +
+                        "\",\"firstName\":\"" + FIRST_NAME + "\",\"lastName\":\"" + LAST_NAME +
+                        "\",\"birthDate\":\"" + BIRTH_DATE + "\",\"address\":null,\"phoneNumber\":null}]}"));
+    }
+
+    @Test
+    void givenMoreUsersThanLimit_whenGetAllUsers_thenReturnNextCursor() throws Exception {
+        UserDTO first = new UserDTO(1L, EMAIL, FIRST_NAME, LAST_NAME, BIRTH_DATE, null, null);
+        UserDTO second = new UserDTO(2L, EMAIL, FIRST_NAME, LAST_NAME, BIRTH_DATE, null, null);
+        given(userRepository.findAllDtos(Limit.of(2))).willReturn(List.of(first, second));
+        given(userRepository.findAllDtosAfter(1L, Limit.of(2))).willReturn(List.of(second));
+        String next = new UserCursor(null, 1L).encode();
+
+        mvc.perform(get(URI_USERS + "?limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].id").value(1))
+                .andExpect(jsonPath("$.next").value(next));
+
+        mvc.perform(get(URI_USERS + "?limit=1&after=" + next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].id").value(2))
+                .andExpect(jsonPath("$.next").isEmpty());
+    }
+
+    @Test
+    void givenUsers_whenGetAllUsersByBirthDateAfterCursor_thenReturnNextPage() throws Exception {
+        Date start = Date.valueOf("1990-01-01");
+        Date end = Date.valueOf("2005-01-01");
+        user.setId(2L);
+        given(userRepository.findAllDtosByBirthDateBetweenAfter(start, end, BIRTH_DATE, 1L, Limit.of(21)))
+                .willReturn(List.of(userMapper.apply(user)));
+        String after = new UserCursor(BIRTH_DATE, 1L).encode();
+
+        mvc.perform(get(URI_USERS + "?start=" + start + "&end=" + end + "&after=" + after))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].id").value(2))
+                .andExpect(jsonPath("$.next").isEmpty());
+    }
+
+    @Test
+    void whenGetAllUsersWithInvalidCursor_thenReturnBadRequestError() throws Exception {
+        mvc.perform(get(URI_USERS + "?after=" + new UserCursor(BIRTH_DATE, 1L).encode()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(HttpStatus.BAD_REQUEST.name()))
+                .andExpect(jsonPath("$.path").value(URI_USERS));
+    }
+
+    @Test
+    void whenGetAllUsersWithLimitAboveMaximum_thenReturnBadRequestError() throws Exception {
+        mvc.perform(get(URI_USERS + "?limit=" + (maxPageLimit + 1)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(HttpStatus.BAD_REQUEST.name()))
+                .andExpect(jsonPath("$.message").value("Limit must be between 1 and " + maxPageLimit))
+                .andExpect(jsonPath("$.path").value(URI_USERS));
     }
 
     @Test
@@ -88,11 +191,100 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.path").value(URI_USERS));
     }
 
+    @Test
+    void givenUsers_whenExportUsers_thenReturnNdjson() throws Exception {
+        UserDTO other = new UserDTO(2L, "other@gmail.com", FIRST_NAME, LAST_NAME, BIRTH_DATE, null, null);
+        willAnswer(invocation -> {
+            Consumer<UserDTO> action = invocation.getArgument(2);
+            action.accept(userMapper.apply(user));
+            action.accept(other);
+            return null;
+        }).given(userRepository).forEach(isNull(), isNull(), any());
+
+        mvc.perform(get(URI_USERS + "/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(containsString("\"email\":\"" + EMAIL + "\"")))
+                .andExpect(content().string(endsWith("\"email\":\"other@gmail.com\",\"firstName\":\"" + FIRST_NAME +
+                        "\",\"lastName\":\"" + LAST_NAME + "\",\"birthDate\":\"" + BIRTH_DATE +
+                        "\",\"address\":null,\"phoneNumber\":null}\n")));
+    }
+
+    @Test
+    void whenExportUsersWithStartDateGreaterThanEndDate_thenReturnBadRequestError() throws Exception {
+        mvc.perform(get(URI_USERS + "/export?start=2009-02-06&end=2008-06-02"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Start date greater than end date"));
+    }
+
+    @Test
+    void givenUsers_whenGetAllUsersAcceptingCborOrSmile_thenReturnSameDocumentAsJson() throws Exception {
+        given(userRepository.findAllDtos(any(Limit.class))).willReturn(List.of(userMapper.apply(user)));
+        JsonNode json = objectMapper.readTree(mvc.perform(get(URI_USERS))
+                .andReturn().getResponse().getContentAsByteArray());
+
+        for (UserFormat format : List.of(UserFormat.CBOR, UserFormat.SMILE)) {
+            byte[] body = mvc.perform(get(URI_USERS).accept(format.mediaType()))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(format.mediaType()))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            assertThat(formats.mapper(format).readTree(body)).isEqualTo(json);
+        }
+    }
+
+    @Test
+    void givenUsers_whenGetAllUsersAcceptingProtobuf_thenReturnUserPageMessage() throws Exception {
+        given(userRepository.findAllDtos(any(Limit.class))).willReturn(List.of(userMapper.apply(user)));
+
+        byte[] body = mvc.perform(get(URI_USERS).accept(UserFormat.PROTOBUF.mediaType()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(UserFormat.PROTOBUF.mediaType()))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode page = readProtobuf("UserPage", body);
+        assertThat(page.has("next")).isFalse();
+        assertThat(page.at("/data/0/id").asLong()).isEqualTo(ID);
+        assertThat(page.at("/data/0/email").asText()).isEqualTo(EMAIL);
+        assertThat(page.at("/data/0/birthDate").asText()).isEqualTo(BIRTH_DATE.toString());
+    }
+
+    @Test
+    void givenUser_whenGetUserByIdAcceptingProtobuf_thenReturnUserResponseMessage() throws Exception {
+        given(userRepository.findVersionedById(ID)).willReturn(Optional.of(new VersionedUser(userMapper.apply(user), VERSION)));
+
+        byte[] body = mvc.perform(get(URI_USERS_ID).accept(UserFormat.PROTOBUF.mediaType()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(UserFormat.PROTOBUF.mediaType()))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(readProtobuf("UserResponse", body).at("/data/email").asText()).isEqualTo(EMAIL);
+    }
+
+    @Test
+    void whenGetUserByIdWithNonExistentIdAcceptingProtobuf_thenReturnErrorMessage() throws Exception {
+        byte[] body = mvc.perform(get(URI_USERS_ID).accept(UserFormat.PROTOBUF.mediaType()))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(UserFormat.PROTOBUF.mediaType()))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode error = readProtobuf("ErrorDTO", body);
+        assertThat(error.get("status").asInt()).isEqualTo(HttpStatus.NOT_FOUND.value());
+        assertThat(error.get("message").asText()).isEqualTo(String.format(MESSAGE_ENTITY_NOT_FOUND, ID));
+    }
+
+    @Test
+    void whenGetAllUsersAcceptingUnsupportedType_thenReturnNotAcceptable() throws Exception {
+        mvc.perform(get(URI_USERS).accept(MediaType.TEXT_HTML))
+                .andExpect(status().isNotAcceptable());
+        verify(userRepository, never()).findAllDtos(any(Limit.class));
+    }
+
     @Test
     void givenUser_whenGetUserById_thenReturnUser() throws Exception {
         UserEntity user = new UserEntity(EMAIL, FIRST_NAME, LAST_NAME, BIRTH_DATE, ADDRESS, PHONE_NUMBER);
-        given(userRepository.existsById(ID)).willReturn(true);
-        given(userRepository.getReferenceById(ID)).willReturn(user);
+        user.setId(ID);
+        given(userRepository.findVersionedById(ID)).willReturn(Optional.of(new VersionedUser(userMapper.apply(user), VERSION)));
 
         mvc.perform(get(URI_USERS_ID))
                 .andExpect(status().isOk())
@@ -104,6 +296,128 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.data.phoneNumber").value(PHONE_NUMBER));
     }
 
+    @Test
+    void givenCachedUser_whenGetUserById_thenReturnUserWithoutLoadingIt() throws Exception {
+        given(userRepository.findVersionedById(ID)).willReturn(Optional.of(new VersionedUser(userMapper.apply(user), VERSION)));
+        UserCacheStats stats = userCache.stats();
+
+        mvc.perform(get(URI_USERS_ID)).andExpect(status().isOk());
+        mvc.perform(get(URI_USERS_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.email").value(EMAIL));
+
+        verify(userRepository, times(1)).findVersionedById(ID);
+        mvc.perform(get(URI_USERS + "/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.size").value(1))
+                .andExpect(jsonPath("$.data.hitCount").value(stats.hitCount() + 1))
+                .andExpect(jsonPath("$.data.missCount").value(stats.missCount() + 1));
+    }
+
+    @Test
+    void givenCachedUser_whenUpdateUser_thenReturnUpdatedUserFromCache() throws Exception {
+        given(userRepository.findVersionedById(ID)).willReturn(Optional.of(new VersionedUser(userMapper.apply(user), VERSION)));
+        given(userRepository.updateOneByIdAndVersion(eq(ID), eq(VERSION), any(), any(), any(), any(), any(), any(), any())).willReturn(1);
+        mvc.perform(get(URI_USERS_ID)).andExpect(status().isOk());
+
+        String updatedEmail = "updatedEmail@gmail.com";
+        String body = "{" +
+                "\"email\": \"" + updatedEmail + "\", " +
+                "\"firstName\": \"" + FIRST_NAME + "\", " +
+                "\"lastName\": \"" + LAST_NAME + "\", " +
+                "\"birthDate\": \"" + BIRTH_DATE + "\" " +
+                "}";
+        mvc.perform(put(URI_USERS_ID)
+                        .header(HttpHeaders.IF_MATCH, "\"" + VERSION + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + (VERSION + 1) + "\""));
+
+        mvc.perform(get(URI_USERS_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + (VERSION + 1) + "\""))
+                .andExpect(jsonPath("$.data.email").value(updatedEmail));
+        verify(userRepository, times(1)).findVersionedById(ID);
+    }
+
+    @Test
+    void givenCachedUser_whenDeleteUser_thenReturnEntityNotFoundError() throws Exception {
+        given(userRepository.findVersionedById(ID)).willReturn(Optional.of(new VersionedUser(userMapper.apply(user), VERSION)));
+        given(userRepository.deleteOneById(ID)).willReturn(1);
+        mvc.perform(get(URI_USERS_ID)).andExpect(status().isOk());
+
+        mvc.perform(delete(URI_USERS_ID)).andExpect(status().isOk());
+        given(userRepository.findVersionedById(ID)).willReturn(Optional.empty());
+
+        mvc.perform(get(URI_USERS_ID)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void givenUser_whenGetUserByIdWithMatchingETag_thenReturnNotModifiedWithoutLoadingIt() throws Exception {
+        given(userRepository.findVersionById(ID)).willReturn(Optional.of(VERSION));
+
+        mvc.perform(get(URI_USERS_ID).header(HttpHeaders.IF_NONE_MATCH, "W/\"1\", \"" + VERSION + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + VERSION + "\""))
+                .andExpect(content().string(""));
+        verify(userRepository, never()).findVersionedById(any());
+    }
+
+    @Test
+    void givenUser_whenGetUserByIdWithStaleETag_thenReturnUserWithCurrentETag() throws Exception {
+        given(userRepository.findVersionById(ID)).willReturn(Optional.of(VERSION));
+        given(userRepository.findVersionedById(ID)).willReturn(Optional.of(new VersionedUser(userMapper.apply(user), VERSION)));
+
+        mvc.perform(get(URI_USERS_ID).header(HttpHeaders.IF_NONE_MATCH, "\"" + (VERSION - 1) + "\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + VERSION + "\""))
+                .andExpect(jsonPath("$.data.email").value(EMAIL));
+    }
+
+    @Test
+    void givenUser_whenUpdateUserWithStaleIfMatch_thenReturnPreconditionFailedError() throws Exception {
+        given(userRepository.updateOneByIdAndVersion(eq(ID), eq(VERSION - 1), any(), any(), any(), any(), any(), any(), any())).willReturn(0);
+        given(userRepository.existsById(ID)).willReturn(true);
+
+        String body = "{" +
+                "\"email\": \"" + EMAIL + "\", " +
+                "\"firstName\": \"" + FIRST_NAME + "\", " +
+                "\"lastName\": \"" + LAST_NAME + "\", " +
+                "\"birthDate\": \"" + BIRTH_DATE + "\" " +
+                "}";
+        mvc.perform(put(URI_USERS_ID)
+                        .header(HttpHeaders.IF_MATCH, "\"" + (VERSION - 1) + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error").value(HttpStatus.PRECONDITION_FAILED.name()));
+        mvc.perform(put(URI_USERS_ID)
+                        .header(HttpHeaders.IF_MATCH, "W/\"" + VERSION + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isPreconditionFailed());
+        verify(userRepository, never()).updateOneById(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void givenUser_whenPartialUpdateUserWithStaleIfMatch_thenReturnPreconditionFailedError() throws Exception {
+        user.setVersion(VERSION);
+        given(userRepository.findById(ID)).willReturn(Optional.of(user));
+
+        mvc.perform(patch(URI_USERS_ID)
+                        .header(HttpHeaders.IF_MATCH, "\"" + (VERSION - 1) + "\"")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE + "-patch+json")
+                        .content("[{\"op\": \"replace\", \"path\": \"/firstName\", \"value\": \"patched\"}]"))
+                .andExpect(status().isPreconditionFailed());
+        mvc.perform(patch(URI_USERS_ID)
+                        .header(HttpHeaders.IF_MATCH, "\"" + VERSION + "\"")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE + "-patch+json")
+                        .content("[{\"op\": \"replace\", \"path\": \"/firstName\", \"value\": \"patched\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.firstName").value("patched"));
+    }
+
     @Test
     void whenGetUserByIdWithNonExistentId_thenReturnEntityNotFoundError() throws Exception {
         mvc.perform(get(URI_USERS_ID))
@@ -151,6 +465,27 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.path").value(URI_USERS));
     }
 
+    @Test
+    void whenCreateUserWithSeveralInvalidFields_thenReturnAllFieldErrors() throws Exception {
+        String body = "{" +
+                "\"email\": \"invalid\", " +
+                "\"lastName\": \"\", " +
+                "\"birthDate\": \"" + BIRTH_DATE + "\" " +
+                "}";
+
+        mvc.perform(post(URI_USERS)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(MESSAGE_BAD_REQUEST_WITH_INVALID_EMAIL_FIELD))
+                .andExpect(jsonPath("$.errors.length()").value(4))
+                .andExpect(jsonPath("$.errors[0].field").value("email"))
+                .andExpect(jsonPath("$.errors[1].field").value("firstName"))
+                .andExpect(jsonPath("$.errors[1].message").value("must not be null"))
+                .andExpect(jsonPath("$.errors[2].message").value("must not be blank"))
+                .andExpect(jsonPath("$.errors[3].field").value("lastName"));
+    }
+
     @Test
     void whenCreateUserWithEmptyRequiredField_thenReturnBadRequestError() throws Exception {
         String body = "{" +
@@ -249,10 +584,65 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.path").value(URI_USERS));
     }
 
+    @Test
+    void givenUsers_whenCreateUsers_thenReturnCreatedUsersAndErrors() throws Exception {
+        given(userRepository.insertAll(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+        Date currentDate = new Date(new java.util.Date().getTime());
+
+        String body = "[{" +
+                "\"email\": \"" + EMAIL + "\", " +
+                "\"firstName\": \"" + FIRST_NAME + "\", " +
+                "\"lastName\": \"" + LAST_NAME + "\", " +
+                "\"birthDate\": \"" + BIRTH_DATE + "\" " +
+                "}, {" +
+                "\"email\": \"test\", " +
+                "\"firstName\": \"" + FIRST_NAME + "\", " +
+                "\"lastName\": \"" + LAST_NAME + "\", " +
+                "\"birthDate\": \"" + BIRTH_DATE + "\" " +
+                "}, {" +
+                "\"email\": \"" + EMAIL + "\", " +
+                "\"firstName\": \"" + FIRST_NAME + "\", " +
+                "\"lastName\": \"" + LAST_NAME + "\", " +
+                "\"birthDate\": \"" + currentDate + "\" " +
+                "}]";
+
+        mvc.perform(post(URI_USERS + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.created.length()").value(1))
+                .andExpect(jsonPath("$.data.created[0].email").value(EMAIL))
+                .andExpect(jsonPath("$.data.errors.length()").value(2))
+                .andExpect(jsonPath("$.data.errors[0].index").value(1))
+                .andExpect(jsonPath("$.data.errors[0].message").value(MESSAGE_BAD_REQUEST_WITH_INVALID_EMAIL_FIELD))
+                .andExpect(jsonPath("$.data.errors[1].index").value(2))
+                .andExpect(jsonPath("$.data.errors[1].message")
+                        .value(String.format(MESSAGE_BAD_REQUEST_WITH_BELOW_ALLOWED_AGE, permittedAge)));
+    }
+
+    @Test
+    void whenCreateUsersWithOnlyInvalidUsers_thenReturnBadRequest() throws Exception {
+        String body = "[{" +
+                "\"firstName\": \"" + FIRST_NAME + "\", " +
+                "\"lastName\": \"" + LAST_NAME + "\", " +
+                "\"birthDate\": \"" + BIRTH_DATE + "\" " +
+                "}]";
+
+        mvc.perform(post(URI_USERS + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.data.created.length()").value(0))
+                .andExpect(jsonPath("$.data.errors[0].index").value(0))
+                .andExpect(jsonPath("$.data.errors[0].message").value(
+                        "The email field must not be blank, The email field must not be null"))
+                .andExpect(content().string("{\"data\":{\"created\":[],\"errors\":[{\"index\":0,\"message\":" +
+                        "\"The email field must not be blank, The email field must not be null\"}]}}"));
+    }
+
     @Test
     void givenUser_whenUpdateUser_thenReturnUser() throws Exception {
-        given(userRepository.existsById(ID)).willReturn(true);
-        given(userRepository.getReferenceById(ID)).willReturn(user);
+        given(userRepository.updateOneById(eq(ID), any(), any(), any(), any(), any(), any(), any())).willReturn(1);
 
         String updatedEmail = "updatedEmail@gmail.com";
         String updatedFirstName = "updated first name";
@@ -301,8 +691,7 @@ class UserControllerTest {
 
     @Test
     void givenUser_whenUpdateUserWithMissingRequiredField_thenReturnBadRequestError() throws Exception {
-        given(userRepository.existsById(ID)).willReturn(true);
-        given(userRepository.getReferenceById(ID)).willReturn(user);
+        given(userRepository.findById(ID)).willReturn(Optional.of(user));
 
         String updatedEmail = "updatedEmail@gmail.com";
         String updatedLastName = "updated last name";
@@ -325,8 +714,7 @@ class UserControllerTest {
 
     @Test
     void givenUser_whenUpdateUserWithEmptyRequiredField_thenReturnBadRequestError() throws Exception {
-        given(userRepository.existsById(ID)).willReturn(true);
-        given(userRepository.getReferenceById(ID)).willReturn(user);
+        given(userRepository.findById(ID)).willReturn(Optional.of(user));
 
         String updatedEmail = "updatedEmail@gmail.com";
         String updatedLastName = "updated last name";
@@ -350,8 +738,7 @@ class UserControllerTest {
 
     @Test
     void givenUser_whenUpdateUserWithInvalidEmail_thenReturnBadRequestError() throws Exception {
-        given(userRepository.existsById(ID)).willReturn(true);
-        given(userRepository.getReferenceById(ID)).willReturn(user);
+        given(userRepository.findById(ID)).willReturn(Optional.of(user));
 
         String updatedEmail = "updatedEmail";
         String updatedFirstName = "updated first name";
@@ -376,8 +763,7 @@ class UserControllerTest {
 
     @Test
     void givenUser_whenUpdateUserWithInvalidFormatOfBirthDate_thenReturnBadRequestError() throws Exception {
-        given(userRepository.existsById(ID)).willReturn(true);
-        given(userRepository.getReferenceById(ID)).willReturn(user);
+        given(userRepository.findById(ID)).willReturn(Optional.of(user));
 
         String birthDate = "2015.09.09";
 
@@ -400,7 +786,6 @@ class UserControllerTest {
     @Test
     void givenUser_whenUpdateUserWithBelowAllowedAge_thenReturnBadRequestError() throws Exception {
         given(userRepository.existsById(ID)).willReturn(true);
-        given(userRepository.getReferenceById(ID)).willReturn(user);
 
         Date currentDate = new Date(new java.util.Date().getTime());
 
@@ -422,8 +807,7 @@ class UserControllerTest {
 
     @Test
     void givenUser_whenUpdateUserWithFutureDateInBirthDateField_thenReturnBadRequestError() throws Exception {
-        given(userRepository.existsById(ID)).willReturn(true);
-        given(userRepository.getReferenceById(ID)).willReturn(user);
+        given(userRepository.findById(ID)).willReturn(Optional.of(user));
 
         Date currentDate = new Date(new java.util.Date().getTime());
         Calendar calendar = Calendar.getInstance();
@@ -449,8 +833,7 @@ class UserControllerTest {
 
     @Test
     void givenUser_whenPartialUpdateUser_thenReturnUser() throws Exception {
-        given(userRepository.existsById(ID)).willReturn(true);
-        given(userRepository.getReferenceById(ID)).willReturn(user);
+        given(userRepository.findById(ID)).willReturn(Optional.of(user));
 
         String updatedEmail = "updatedEmail@gmail.com";
         String body = "[{" +
@@ -489,8 +872,7 @@ class UserControllerTest {
 
     @Test
     void givenUser_whenPartialUpdateUserWithInvalidFormatOfBirthDate_thenReturnBadRequestError() throws Exception {
-        given(userRepository.existsById(ID)).willReturn(true);
-        given(userRepository.getReferenceById(ID)).willReturn(user);
+        given(userRepository.findById(ID)).willReturn(Optional.of(user));
 
         String birthDate = "2015.09.09";
         String body = "[{" +
@@ -504,17 +886,14 @@ class UserControllerTest {
                         .content(body))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value(HttpStatus.BAD_REQUEST.name()))
-                .andExpect(jsonPath("$.message")
-                        .value(String.format("Failed to parse Date value '%s': Cannot parse date \"%s\": not compatible with " +
-                                "any of standard forms (\"yyyy-MM-dd'T'HH:mm:ss.SSSX\", \"yyyy-MM-dd'T'HH:mm:ss.SSS\", \"EEE, " +
-                                "dd MMM yyyy HH:mm:ss zzz\", \"yyyy-MM-dd\"))\n", birthDate, birthDate)))
+                .andExpect(jsonPath("$.message").value(String.format(MESSAGE_BAD_REQUEST_WITH_INVALID_VALUE, "birthDate", birthDate)))
+                .andExpect(jsonPath("$.errors[0].field").value("birthDate"))
                 .andExpect(jsonPath("$.path").value(URI_USERS_ID));
     }
 
     @Test
     void givenUser_whenPartialUpdateUserWithBellowAllowedAge_thenReturnBadRequestError() throws Exception {
-        given(userRepository.existsById(ID)).willReturn(true);
-        given(userRepository.getReferenceById(ID)).willReturn(user);
+        given(userRepository.findById(ID)).willReturn(Optional.of(user));
 
         Date currentDate = new Date(new java.util.Date().getTime());
         String body = "[{" +
@@ -532,15 +911,106 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.path").value(URI_USERS_ID));
     }
 
+    @Test
+    void givenUser_whenPartialUpdateUserWithSeveralOperations_thenApplyThemInOrder() throws Exception {
+        given(userRepository.findById(ID)).willReturn(Optional.of(user));
+
+        String body = "[" +
+                "{\"op\": \"test\", \"path\": \"/firstName\", \"value\": \"" + FIRST_NAME + "\"}, " +
+                "{\"op\": \"copy\", \"from\": \"/firstName\", \"path\": \"/address\"}, " +
+                "{\"op\": \"move\", \"from\": \"/address\", \"path\": \"/phoneNumber\"}, " +
+                "{\"op\": \"add\", \"path\": \"/lastName\", \"value\": \"added\"}" +
+                "]";
+
+        mvc.perform(patch(URI_USERS_ID)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE + "-patch+json")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.lastName").value("added"))
+                .andExpect(jsonPath("$.data.address").doesNotExist())
+                .andExpect(jsonPath("$.data.phoneNumber").value(FIRST_NAME));
+    }
+
+    @Test
+    void whenPartialUpdateUserWithUnsupportedPath_thenReturnBadRequestError() throws Exception {
+        mvc.perform(patch(URI_USERS_ID)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE + "-patch+json")
+                        .content("[{\"op\": \"replace\", \"path\": \"/id\", \"value\": 2}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The id field cannot be updated"));
+        mvc.perform(patch(URI_USERS_ID)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE + "-patch+json")
+                        .content("[{\"op\": \"add\", \"path\": \"/nickname\", \"value\": \"nick\"}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown field nickname"));
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void givenUser_whenPartialUpdateUserRemovingRequiredField_thenReturnBadRequestError() throws Exception {
+        given(userRepository.findById(ID)).willReturn(Optional.of(user));
+
+        mvc.perform(patch(URI_USERS_ID)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE + "-patch+json")
+                        .content("[{\"op\": \"remove\", \"path\": \"/email\"}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(String.format(MESSAGE_BAD_REQUEST_WITH_MISSING_REQUIRED_FIELD, "email")));
+    }
+
+    @Test
+    void givenUser_whenPartialUpdateUserWithFailingTest_thenReturnConflictError() throws Exception {
+        given(userRepository.findById(ID)).willReturn(Optional.of(user));
+
+        mvc.perform(patch(URI_USERS_ID)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE + "-patch+json")
+                        .content("[{\"op\": \"test\", \"path\": \"/firstName\", \"value\": \"other\"}]"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("The firstName field does not match the tested value"));
+    }
+
+    @Test
+    void givenUser_whenPartialUpdateUserTestingBirthDate_thenCompareCalendarDays() throws Exception {
+        // A row loaded at local midnight in a zone east of UTC, while the tested value is parsed at UTC midnight
+        user.setBirthDate(new Date(BIRTH_DATE.getTime() + TimeUnit.HOURS.toMillis(3)));
+        given(userRepository.findById(ID)).willReturn(Optional.of(user));
+
+        mvc.perform(patch(URI_USERS_ID)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE + "-patch+json")
+                        .content("[{\"op\": \"test\", \"path\": \"/birthDate\", \"value\": \"" + BIRTH_DATE + "\"}]"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void whenPartialUpdateUserCopyingBetweenFieldTypes_thenReturnBadRequestError() throws Exception {
+        mvc.perform(patch(URI_USERS_ID)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE + "-patch+json")
+                        .content("[{\"op\": \"copy\", \"from\": \"/birthDate\", \"path\": \"/firstName\"}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The birthDate field cannot be copied to the firstName field"));
+        verify(userRepository, never()).findById(any());
+    }
+
     @Test
     void givenTrue_whenDeleteUser_thenReturnJson() throws Exception {
-        given(userRepository.existsById(ID)).willReturn(true);
+        given(userRepository.deleteOneById(ID)).willReturn(1);
 
         mvc.perform(delete(URI_USERS_ID))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data.message").value("Successfully deleted"));
     }
 
+    @Test
+    void givenOtherIntegrityViolation_whenDeleteUser_thenReturnInternalServerError() throws Exception {
+        given(userRepository.deleteOneById(ID)).willThrow(
+                new DataIntegrityViolationException("FK_ORDERS_USER: referenced by orders"));
+
+        mvc.perform(delete(URI_USERS_ID))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.error").value(HttpStatus.INTERNAL_SERVER_ERROR.name()))
+                .andExpect(jsonPath("$.message").value("The request violates a data integrity constraint"))
+                .andExpect(jsonPath("$.path").value(URI_USERS_ID));
+    }
+
     @Test
     void whenDeleteUserWithNonExistentId_thenReturnEntityNotFoundError() throws Exception {
         mvc.perform(delete(URI_USERS_ID))
@@ -549,4 +1019,76 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.message").value(String.format(MESSAGE_ENTITY_NOT_FOUND, ID)))
                 .andExpect(jsonPath("$.path").value(URI_USERS_ID));
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenUsers_whenDeleteUsersByIds_thenReturnAffectedCount() throws Exception {
+        given(userRepository.deleteAllMatching(List.of(1L, 2L, 3L), null, null)).willReturn(2);
+
+        mvc.perform(delete(URI_USERS + "?ids=1,2,3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.affected").value(2));
+    }
+
+    @Test
+    void whenDeleteUsersWithoutFilter_thenReturnBadRequestError() throws Exception {
+        mvc.perform(delete(URI_USERS))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(HttpStatus.BAD_REQUEST.name()))
+                .andExpect(jsonPath("$.message").value("Either ids or start and end dates are required"))
+                .andExpect(jsonPath("$.path").value(URI_USERS));
+    }
+
+    @Test
+    void givenUsers_whenUpdateUsersByBirthDate_thenReturnAffectedCount() throws Exception {
+        Date start = Date.valueOf("1990-01-01");
+        Date end = Date.valueOf("2005-01-01");
+        given(userRepository.updateAllMatching(Map.of(UserField.ADDRESS, ADDRESS), null, start, end)).willReturn(5);
+
+        mvc.perform(patch(URI_USERS + "?start=" + start + "&end=" + end)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"address\": \"" + ADDRESS + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.affected").value(5));
+    }
+
+    @Test
+    void whenUpdateUsersWithBelowAllowedAge_thenReturnBadRequestError() throws Exception {
+        Date currentDate = new Date(new java.util.Date().getTime());
+
+        mvc.perform(patch(URI_USERS + "?ids=1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"birthDate\": \"" + currentDate + "\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(String.format(MESSAGE_BAD_REQUEST_WITH_BELOW_ALLOWED_AGE, permittedAge)));
+    }
+
+    @Test
+    void whenUpdateUsersWithUnknownOrReadOnlyField_thenReturnBadRequestError() throws Exception {
+        mvc.perform(patch(URI_USERS + "?ids=1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nickname\": \"test\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown field nickname"));
+
+        mvc.perform(patch(URI_USERS + "?ids=1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": 5}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The id field cannot be updated"));
+    }
+
+    @Test
+    void whenUpdateUsersWithEmptyRequiredField_thenReturnBadRequestError() throws Exception {
+        mvc.perform(patch(URI_USERS + "?ids=1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\": \"\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(String.format(MESSAGE_BAD_REQUEST_WITH_EMPTY_REQUIRED_FIELD, "firstName")));
+    }
+
+    private JsonNode readProtobuf(String message, byte[] body) throws IOException {
+        return formats.mapper(UserFormat.PROTOBUF).readerFor(JsonNode.class)
+                .with(formats.protobufSchema(message))
+                .readValue(body);
+    }
+}
@@ -0,0 +1,117 @@
+package com.TestTask.Users;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"user.emailFilter.expectedInsertions=1000", "user.emailFilter.falsePositiveRate=0.01"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserEmailFilterTest {
+
+    public static final String URI_USERS = "/api/users";
+    public static final Date START = Date.valueOf("1957-01-01");
+    public static final Date END = Date.valueOf("1957-12-31");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserEmailFilter emailFilter;
+
+    private List<UserEntity> users;
+
+    @BeforeEach
+    void init() {
+        userRepository.deleteAllMatching(null, START, END);
+        users = userRepository.insertAll(List.of(
+                new UserEntity("taken@gmail.com", "filter", "user", Date.valueOf("1957-01-01")),
+                new UserEntity("other@gmail.com", "filter", "user", Date.valueOf("1957-02-01"))));
+        emailFilter.rebuild();
+    }
+
+    @Test
+    void givenRebuiltFilter_whenMightContain_thenRejectAbsentEmails() {
+        assertThat(emailFilter.mightContain(UserEmailFilter.normalize(" Taken@Gmail.com"))).isTrue();
+        assertThat(emailFilter.mightContain(UserEmailFilter.normalize("absent@gmail.com"))).isFalse();
+    }
+
+    @Test
+    void whenCreateUserWithTakenEmail_thenReturnConflict() throws Exception {
+        mvc.perform(post(URI_USERS)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("TAKEN@gmail.com")))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("User with email TAKEN@gmail.com already exists"));
+        mvc.perform(post(URI_USERS)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("new@gmail.com")))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void whenUpdateUserWithTakenEmail_thenReturnConflict() throws Exception {
+        mvc.perform(put(URI_USERS + "/" + users.get(1).getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("taken@gmail.com")))
+                .andExpect(status().isConflict());
+        mvc.perform(patch(URI_USERS + "/" + users.get(1).getId())
+                        .contentType("application/json-patch+json")
+                        .content("[{\"op\": \"replace\", \"path\": \"/email\", \"value\": \"taken@gmail.com\"}]"))
+                .andExpect(status().isConflict());
+        mvc.perform(put(URI_USERS + "/" + users.get(1).getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("other@gmail.com")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void whenCreateUsersWithDuplicateEmails_thenReturnErrorPerDuplicate() throws Exception {
+        mvc.perform(post(URI_USERS + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + body("batch@gmail.com") + ", " + body("Batch@gmail.com") + ", " + body("taken@gmail.com") + "]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.created.length()").value(1))
+                .andExpect(jsonPath("$.data.errors.length()").value(2))
+                .andExpect(jsonPath("$.data.errors[0].index").value(1))
+                .andExpect(jsonPath("$.data.errors[0].message").value("User with email Batch@gmail.com already exists"))
+                .andExpect(jsonPath("$.data.errors[1].index").value(2));
+    }
+
+    @Test
+    void whenGetEmailFilterStats_thenReturnSizeAndFalsePositiveRate() throws Exception {
+        mvc.perform(get(URI_USERS + "/email-filter"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.enabled").value(true))
+                .andExpect(jsonPath("$.data.ready").value(true))
+                .andExpect(jsonPath("$.data.hashFunctions").value(7))
+                .andExpect(jsonPath("$.data.configuredFalsePositiveRate").value(0.01));
+        assertThat(emailFilter.stats().bits()).isGreaterThanOrEqualTo(9585);
+        assertThat(emailFilter.stats().insertions()).isGreaterThanOrEqualTo(2);
+    }
+
+    private static String body(String email) {
+        return "{" +
+                "\"email\": \"" + email + "\", " +
+                "\"firstName\": \"filter\", " +
+                "\"lastName\": \"user\", " +
+                "\"birthDate\": \"1957-06-01\"" +
+                "}";
+    }
+}
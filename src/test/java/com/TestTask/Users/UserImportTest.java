@@ -0,0 +1,143 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"user.import.chunkSize=2", "user.import.maxConcurrent=1"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserImportTest {
+
+    public static final String URI_IMPORTS = "/api/users/imports";
+    public static final Date START = Date.valueOf("1959-01-01");
+    public static final Date END = Date.valueOf("1959-12-31");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserImporter userImporter;
+
+    @BeforeEach
+    void init() {
+        userRepository.deleteAllMatching(null, START, END);
+    }
+
+    @Test
+    void whenImportCsv_thenCreateValidRowsAndReportRejectedOnes() throws Exception {
+        String underage = LocalDate.now().minusYears(1).toString();
+        String csv = "birthDate,email,firstName,lastName,address\r\n" +
+                "1959-01-01,csv1@gmail.com,Anna,Lee,\"Kyiv, Khreshchatyk 1\"\r\n" +
+                "1959-02-01,not-an-email,Bob,Brown,\r\n" +
+                "\r\n" +
+                "1959-03-01,csv2@gmail.com,\"Carl \"\"The Quote\"\"\",Smith,\"multi\nline\"\r\n" +
+                underage + ",csv3@gmail.com,Dan,Young,\r\n" +
+                "03/01/1959,csv4@gmail.com,Eve,Stone,\r\n" +
+                "1959-04-01,csv1@gmail.com,Fay,Twin,\r\n";
+
+        JsonNode status = importAndAwait("text/csv", csv);
+
+        assertThat(status.get("state").asText()).isEqualTo("COMPLETED");
+        assertThat(status.get("processed").asLong()).isEqualTo(6);
+        assertThat(status.get("created").asLong()).isEqualTo(2);
+        assertThat(status.get("rejected").asLong()).isEqualTo(4);
+        assertThat(userRepository.findAll().stream()
+                .filter(user -> user.getEmail().equals("csv2@gmail.com"))
+                .map(UserEntity::getFirstName)).containsExactly("Carl \"The Quote\"");
+        mvc.perform(get(URI_IMPORTS + "/" + status.get("id").asText() + "/errors"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv"))
+                .andExpect(content().string("line,message\n" +
+                        "3,\"The email field must be a well-formed email address\"\n" +
+                        "7,\"You cannot use this service, because you're under 18\"\n" +
+                        "8,\"The birthDate field must be a date in yyyy-MM-dd format\"\n" +
+                        "9,\"User with email csv1@gmail.com already exists\"\n"));
+    }
+
+    @Test
+    void whenImportNdjson_thenRejectMalformedLinesOnly() throws Exception {
+        String ndjson = "{\"email\": \"nd1@gmail.com\", \"firstName\": \"a\", \"lastName\": \"b\", \"birthDate\": \"1959-05-01\"}\n" +
+                "{\"email\": \"nd2@gmail.com\", \"firstName\": \n" +
+                "{\"email\": \"nd3@gmail.com\", \"firstName\": \"c\", \"lastName\": \"d\", \"birthDate\": \"1959-06-01\"}\n";
+
+        JsonNode status = importAndAwait("application/x-ndjson", ndjson);
+
+        assertThat(status.get("state").asText()).isEqualTo("COMPLETED");
+        assertThat(status.get("processed").asLong()).isEqualTo(3);
+        assertThat(status.get("created").asLong()).isEqualTo(2);
+        assertThat(status.get("rejected").asLong()).isEqualTo(1);
+        assertThat(status.get("rowsPerSecond").asDouble()).isPositive();
+    }
+
+    @Test
+    void whenImportCsvWithUnknownColumn_thenReturnBadRequest() throws Exception {
+        mvc.perform(post(URI_IMPORTS).contentType("text/csv").content("email,nickname\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown field nickname"));
+        mvc.perform(post(URI_IMPORTS).contentType("text/csv").content("email,firstName,lastName\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The birthDate column is missing"));
+    }
+
+    @Test
+    void givenAllImportSlotsTaken_whenImport_thenReturnServiceUnavailable() throws Exception {
+        UserImportJob job = userImporter.create(UserImportFormat.CSV);
+        try {
+            mvc.perform(post(URI_IMPORTS).contentType("text/csv").content("email,firstName,lastName,birthDate\n"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.message").value("Too many imports in progress"));
+        } finally {
+            userImporter.abandon(job, "Import was not started");
+        }
+
+        JsonNode status = importAndAwait("text/csv", "email,firstName,lastName,birthDate\n");
+        assertThat(status.get("state").asText()).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    void whenGetUnknownImport_thenReturnNotFound() throws Exception {
+        mvc.perform(get(URI_IMPORTS + "/unknown"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Import with id unknown not found"));
+    }
+
+    private JsonNode importAndAwait(String contentType, String body) throws Exception {
+        String accepted = mvc.perform(post(URI_IMPORTS).contentType(contentType).content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andReturn().getResponse().getContentAsString();
+        String location = URI_IMPORTS + "/" + objectMapper.readTree(accepted).at("/data/id").asText();
+        for (int i = 0; i < 100; i++) {
+            JsonNode status = objectMapper.readTree(mvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString()).get("data");
+            if (!status.get("state").asText().equals("RUNNING")) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Import did not finish");
+    }
+}
@@ -0,0 +1,52 @@
+package com.TestTask.Users;
+
+import com.TestTask.Exceptions.DataIntegrityViolations;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserIntegrityViolationTest {
+
+    public static final Date BIRTH_DATE = Date.valueOf("1967-01-01");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<UserEntity> users = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void givenTakenEmail_whenSave_thenReportUniqueEmailViolation() {
+        users.add(userRepository.saveAndFlush(new UserEntity("integrity@gmail.com", "a", "b", BIRTH_DATE)));
+
+        DataIntegrityViolationException ex = catchThrowableOfType(() -> userRepository.saveAndFlush(
+                new UserEntity("integrity@gmail.com", "c", "d", BIRTH_DATE)), DataIntegrityViolationException.class);
+
+        assertThat(DataIntegrityViolations.isUniqueEmail(ex)).isTrue();
+    }
+
+    @Test
+    void givenMissingBirthDate_whenSave_thenReportOtherViolation() {
+        DataIntegrityViolationException ex = catchThrowableOfType(() -> userRepository.saveAndFlush(
+                new UserEntity("integrity-null@gmail.com", "a", "b", null)), DataIntegrityViolationException.class);
+
+        assertThat(ex).isNotNull();
+        assertThat(DataIntegrityViolations.isUniqueEmail(ex)).isFalse();
+    }
+}
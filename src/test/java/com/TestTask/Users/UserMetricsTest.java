@@ -0,0 +1,72 @@
+package com.TestTask.Users;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class UserMetricsTest {
+
+    public static final String URI_USERS = "/api/users";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void givenRequests_whenScrapePrometheus_thenExposeTimersAndCounters() throws Exception {
+        UserEntity user = userRepository.insertAll(List.of(
+                new UserEntity("metrics@gmail.com", "metrics", "user", Date.valueOf("1990-01-01")))).get(0);
+        String uriUsersId = URI_USERS + "/" + user.getId();
+        String currentDate = new Date(new java.util.Date().getTime()).toString();
+
+        mvc.perform(get(uriUsersId)).andExpect(status().isOk());
+        mvc.perform(get(URI_USERS + "/0")).andExpect(status().isNotFound());
+        mvc.perform(patch(uriUsersId)
+                        .contentType("application/json-patch+json")
+                        .content("[{\"op\": \"replace\", \"path\": \"/firstName\", \"value\": \"patched\"}]"))
+                .andExpect(status().isOk());
+        mvc.perform(patch(uriUsersId)
+                        .contentType("application/json-patch+json")
+                        .content("[{\"op\": \"replace\", \"path\": \"/birthDate\", \"value\": \"" + currentDate + "\"}]"))
+                .andExpect(status().isBadRequest());
+
+        String scrape = mvc.perform(get("/actuator/prometheus").accept(MediaType.TEXT_PLAIN))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/api/users/{id}\"")
+                .contains("quantile=\"0.99\"")
+                .contains("spring_data_repository_invocations_seconds_bucket{")
+                .contains("repository=\"UserRepository\"")
+                .contains("users_patch_applications_total 2.0")
+                .contains("users_age_rejections_total 1.0")
+                .contains("users_exceptions_total{exception=\"EntityNotFoundException\",} 1.0")
+                .contains("users_exceptions_total{exception=\"ResponseStatusException\",} 1.0")
+                .contains("hibernate_statements_total{")
+                .contains("hibernate_entities_loads_total{")
+                .contains("hibernate_flushes_total{");
+    }
+}
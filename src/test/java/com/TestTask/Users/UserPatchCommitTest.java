@@ -0,0 +1,74 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserPatchCommitTest {
+
+    public static final List<UserPatchOperation> RENAME =
+            List.of(new UserPatchOperation("replace", "/firstName", null, TextNode.valueOf("renamed")));
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UserEntity user;
+
+    @BeforeEach
+    void init() {
+        user = userRepository.save(new UserEntity("patch.commit@gmail.com", "patch", "user", Date.valueOf("1969-01-01")));
+        userCache.get(user.getId());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteById(user.getId());
+        userCache.invalidateAll();
+    }
+
+    @Test
+    void givenRolledBackPatch_whenGetCachedUser_thenServeTheCommittedVersion() {
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                userService.partialUpdate(user.getId(), RENAME, null);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            assertThat(userCache.getIfPresent(user.getId()).user().firstName()).isEqualTo("patch");
+            status.setRollbackOnly();
+        });
+
+        assertThat(userCache.getIfPresent(user.getId()).user().firstName()).isEqualTo("patch");
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getFirstName()).isEqualTo("patch");
+    }
+
+    @Test
+    void givenCommittedPatch_whenGetCachedUser_thenServeTheNewVersion() throws Exception {
+        UserEntity patched = userService.partialUpdate(user.getId(), RENAME, null);
+
+        VersionedUser cached = userCache.getIfPresent(user.getId());
+        assertThat(cached.user().firstName()).isEqualTo("renamed");
+        assertThat(cached.version()).isEqualTo(patched.getVersion());
+    }
+}
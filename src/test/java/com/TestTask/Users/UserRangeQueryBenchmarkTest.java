@@ -0,0 +1,111 @@
+package com.TestTask.Users;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares birth-date range queries over 1M rows: managed entities mapped through {@link UserMapper}
+ * versus the read-only {@link UserDTO} projection, each with and without the birth_date index.
+ * Run with {@code mvn test -Dtest=UserRangeQueryBenchmarkTest -Dbenchmark=true}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserRangeQueryBenchmarkTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final int ITERATIONS = 20;
+    private static final Date START = Date.valueOf("1980-01-01");
+    private static final Date END = Date.valueOf("1980-12-31");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeAll
+    void populate() {
+        LocalDate firstBirthDate = LocalDate.of(1950, 1, 1);
+        List<Object[]> rows = new ArrayList<>(10_000);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{100_000_000L + i, "bench" + i + "@gmail.com", "bench", "user",
+                    Date.valueOf(firstBirthDate.plusDays(i % 20_000))});
+            if (rows.size() == 10_000) {
+                jdbcTemplate.batchUpdate("insert into users (id, email, first_name, last_name, birth_date) " +
+                        "values (?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    @Test
+    void compareEntityAndProjectionRangeQueries() {
+        jdbcTemplate.execute("drop index idx_users_birth_date_id");
+        long entityWithoutIndex = measure(this::entityQuery);
+        long projectionWithoutIndex = measure(this::projectionQuery);
+
+        jdbcTemplate.execute("create index idx_users_birth_date_id on users (birth_date, id)");
+        long entityWithIndex = measure(this::entityQuery);
+        long projectionWithIndex = measure(this::projectionQuery);
+
+        System.out.printf("%d rows in range, avg ms per query: entity/no index %.1f, projection/no index %.1f, " +
+                        "entity/index %.1f, projection/index %.1f%n", projectionQuery().size(),
+                entityWithoutIndex / 1e6, projectionWithoutIndex / 1e6, entityWithIndex / 1e6, projectionWithIndex / 1e6);
+    }
+
+    private List<UserDTO> entityQuery() {
+        return new TransactionTemplate(transactionManager).execute(status -> entityManager.createQuery(
+                        "select u from UserEntity u where u.birthDate between :start and :end order by u.birthDate, u.id",
+                        UserEntity.class)
+                .setParameter("start", START)
+                .setParameter("end", END)
+                .getResultStream()
+                .map(userMapper)
+                .toList());
+    }
+
+    private List<UserDTO> projectionQuery() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> entityManager.createQuery(UserRepository.SELECT_USER_DTO +
+                        "where u.birthDate between :start and :end order by u.birthDate, u.id", UserDTO.class)
+                .setParameter("start", START)
+                .setParameter("end", END)
+                .getResultList());
+    }
+
+    private long measure(Supplier<List<UserDTO>> query) {
+        assertThat(query.get()).isNotEmpty();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+}
@@ -0,0 +1,148 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "user.replicas.enabled=true",
+        "user.replicas.urls=" + UserReplicaRoutingTest.REPLICA_1 + "," + UserReplicaRoutingTest.REPLICA_2,
+        "user.replicas.username=sa",
+        "user.replicas.password="})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserReplicaRoutingTest {
+
+    public static final String REPLICA_1 = "jdbc:h2:mem:replica1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    public static final String REPLICA_2 = "jdbc:h2:mem:replica2;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    public static final String MISSING_REPLICA = "jdbc:h2:mem:missing;IFEXISTS=TRUE";
+    public static final String URI_USERS = "/api/users";
+    public static final Date START = Date.valueOf("1961-01-01");
+    public static final Date END = Date.valueOf("1961-12-31");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void init() {
+        userRepository.deleteAllMatching(null, START, END);
+        // Stand-ins for replicated data, so each read shows which database answered it
+        replica(REPLICA_1, "replica1@gmail.com");
+        replica(REPLICA_2, "replica2@gmail.com");
+    }
+
+    @Test
+    void whenReadUsers_thenAlternateBetweenReplicas() throws Exception {
+        Set<String> emails = new HashSet<>();
+        emails.addAll(getEmails("reader"));
+        emails.addAll(getEmails("reader"));
+
+        assertThat(emails).containsExactlyInAnyOrder("replica1@gmail.com", "replica2@gmail.com");
+    }
+
+    @Test
+    void givenOwnRecentWrite_whenReadUsers_thenReadFromPrimary() throws Exception {
+        mvc.perform(post(URI_USERS)
+                        .header(UserReplicaRoutingFilter.CLIENT_ID_HEADER, "writer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"primary@gmail.com\", \"firstName\": \"a\", \"lastName\": \"b\", " +
+                                "\"birthDate\": \"1961-06-01\"}"))
+                .andExpect(status().isCreated());
+
+        assertThat(getEmails("writer")).containsExactly("primary@gmail.com");
+        assertThat(getEmails("reader")).doesNotContain("primary@gmail.com");
+    }
+
+    @Test
+    void givenUnavailableReplicas_whenGetConnection_thenFailOverToPrimary() throws Exception {
+        HikariDataSource missing = new HikariDataSource();
+        missing.setJdbcUrl(MISSING_REPLICA);
+        missing.setConnectionTimeout(250);
+        DriverManagerDataSource primary = new DriverManagerDataSource(REPLICA_1, "sa", "");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try (UserReplicaDataSource dataSource = new UserReplicaDataSource(primary, List.of(missing),
+                UserReplicaStrategy.ROUND_ROBIN, Duration.ofMinutes(1), meterRegistry)) {
+            UserReplicaRouting.allowReplica();
+            for (int i = 0; i < 2; i++) {
+                try (Connection connection = dataSource.getConnection()) {
+                    assertThat(connection.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:replica1");
+                }
+            }
+        } finally {
+            UserReplicaRouting.clear();
+        }
+        assertThat(meterRegistry.get("users.replicas.failovers").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void whenGetConnectionWithCredentials_thenDelegateWithoutMarkingReplicasDown() throws Exception {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setJdbcUrl(REPLICA_2);
+        replica.setUsername("sa");
+        DriverManagerDataSource primary = new DriverManagerDataSource(REPLICA_1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try (UserReplicaDataSource dataSource = new UserReplicaDataSource(primary, List.of(replica),
+                UserReplicaStrategy.ROUND_ROBIN, Duration.ofMinutes(1), meterRegistry)) {
+            try (Connection connection = dataSource.getConnection("sa", "")) {
+                assertThat(connection.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:replica1");
+            }
+            UserReplicaRouting.allowReplica();
+            // Hikari pools only hand out connections for their configured credentials
+            assertThatThrownBy(() -> dataSource.getConnection("sa", ""))
+                    .isInstanceOf(SQLFeatureNotSupportedException.class);
+            try (Connection connection = dataSource.getConnection()) {
+                assertThat(connection.getMetaData().getURL()).isEqualTo("jdbc:h2:mem:replica2");
+            }
+        } finally {
+            UserReplicaRouting.clear();
+        }
+        assertThat(meterRegistry.get("users.replicas.failovers").counter().count()).isZero();
+    }
+
+    private List<String> getEmails(String client) throws Exception {
+        String body = mvc.perform(get(URI_USERS + "?start=" + START + "&end=" + END)
+                        .header(UserReplicaRoutingFilter.CLIENT_ID_HEADER, client))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("data").findValuesAsText("email");
+    }
+
+    private static void replica(String url, String email) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS users (id BIGINT PRIMARY KEY, email VARCHAR(255), " +
+                "first_name VARCHAR(255), last_name VARCHAR(255), birth_date DATE, address VARCHAR(255), " +
+                "phone_number VARCHAR(255), version BIGINT)");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("INSERT INTO users VALUES (1, ?, 'replica', 'user', ?, NULL, NULL, 0)", email, START);
+    }
+}
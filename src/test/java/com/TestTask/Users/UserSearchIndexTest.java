@@ -0,0 +1,106 @@
+package com.TestTask.Users;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "user.searchIndex.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserSearchIndexTest {
+
+    public static final String URI_USERS = "/api/users";
+    public static final Date START = Date.valueOf("1956-01-01");
+    public static final Date END = Date.valueOf("1956-12-31");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserSearchIndex searchIndex;
+
+    private List<UserEntity> users;
+
+    @BeforeEach
+    void init() {
+        userRepository.deleteAllMatching(null, START, END);
+        users = userRepository.insertAll(List.of(
+                new UserEntity("wombat@gmail.com", "Wombat", "Smith", Date.valueOf("1956-01-01")),
+                new UserEntity("wombats.fan@gmail.com", "Anna", "Lee", Date.valueOf("1956-02-01")),
+                new UserEntity("mr.wombat@gmail.com", "Bob", "Brown", Date.valueOf("1956-03-01"))));
+        searchIndex.rebuild();
+    }
+
+    @Test
+    void givenRebuiltIndex_whenSearch_thenReturnHitsOrderedByRank() {
+        assertThat(searchIndex.canSearch("wombat")).isTrue();
+        assertThat(searchIndex.search("wombat", null, 10)).containsExactly(
+                new UserSearchHit(users.get(0).getId(), UserSearchRank.EXACT),
+                new UserSearchHit(users.get(1).getId(), UserSearchRank.PREFIX),
+                new UserSearchHit(users.get(2).getId(), UserSearchRank.SUBSTRING));
+        assertThat(searchIndex.search("wombat", new UserSearchCursor(UserSearchRank.EXACT, users.get(0).getId()), 1))
+                .containsExactly(new UserSearchHit(users.get(1).getId(), UserSearchRank.PREFIX));
+        assertThat(searchIndex.search("bats.f", null, 10))
+                .containsExactly(new UserSearchHit(users.get(1).getId(), UserSearchRank.SUBSTRING));
+        assertThat(searchIndex.search("wombatx", null, 10)).isEmpty();
+    }
+
+    @Test
+    void givenRebuiltIndex_whenSearchUsers_thenPageThroughIndex() throws Exception {
+        String next = new UserSearchCursor(UserSearchRank.EXACT, users.get(0).getId()).encode();
+
+        mvc.perform(get(URI_USERS + "/search?q=Wombat&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].email").value("wombat@gmail.com"))
+                .andExpect(jsonPath("$.next").value(next));
+        mvc.perform(get(URI_USERS + "/search?q=Wombat&after=" + next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].email").value("wombats.fan@gmail.com"))
+                .andExpect(jsonPath("$.data[1].email").value("mr.wombat@gmail.com"))
+                .andExpect(jsonPath("$.next").isEmpty());
+    }
+
+    @Test
+    void givenRebuiltIndex_whenUsersChange_thenKeepIndexInSync() throws Exception {
+        mvc.perform(post(URI_USERS)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"new.wombat@gmail.com\", \"firstName\": \"Dan\", " +
+                                "\"lastName\": \"Gray\", \"birthDate\": \"1956-04-01\"}"))
+                .andExpect(status().isCreated());
+        mvc.perform(patch(URI_USERS + "/" + users.get(0).getId())
+                        .contentType("application/json-patch+json")
+                        .content("[{\"op\": \"replace\", \"path\": \"/firstName\", \"value\": \"Koala\"}, " +
+                                "{\"op\": \"replace\", \"path\": \"/email\", \"value\": \"koala@gmail.com\"}]"))
+                .andExpect(status().isOk());
+        mvc.perform(delete(URI_USERS + "/" + users.get(1).getId()))
+                .andExpect(status().isOk());
+        mvc.perform(patch(URI_USERS + "?ids=" + users.get(2).getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lastName\": \"Wombatson\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get(URI_USERS + "/search?q=wombat"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].email").value("mr.wombat@gmail.com"))
+                .andExpect(jsonPath("$.data[0].lastName").value("Wombatson"))
+                .andExpect(jsonPath("$.data[1].email").value("new.wombat@gmail.com"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "user.search.maxCandidates=" + UserSearchTest.MAX_CANDIDATES)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserSearchTest {
+
+    public static final String URI_USERS_SEARCH = "/api/users/search";
+    public static final Date START = Date.valueOf("1955-01-01");
+    public static final Date END = Date.valueOf("1955-12-31");
+    public static final int MAX_CANDIDATES = 2;
+    public static final String SELECT_CANDIDATES = "select u.id from UserEntity u";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private List<UserEntity> users;
+
+    @BeforeEach
+    void init() {
+        userRepository.deleteAllMatching(null, START, END);
+        users = userRepository.insertAll(List.of(
+                new UserEntity("quokka@gmail.com", "Quokka", "Smith", Date.valueOf("1955-01-01")),
+                new UserEntity("quokkas.fan@gmail.com", "Anna", "Lee", Date.valueOf("1955-02-01")),
+                new UserEntity("mr.quokka@gmail.com", "Bob", "Brown", Date.valueOf("1955-03-01")),
+                new UserEntity("carl@gmail.com", "Carl", "Quokkason", Date.valueOf("1955-04-01"))));
+    }
+
+    @Test
+    void givenUsers_whenSearchUsers_thenReturnUsersRankedByMatch() throws Exception {
+        mvc.perform(get(URI_USERS_SEARCH + "?q=QUOKKA"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(4))
+                .andExpect(jsonPath("$.data[0].id").value(users.get(0).getId()))
+                .andExpect(jsonPath("$.data[1].id").value(users.get(1).getId()))
+                .andExpect(jsonPath("$.data[2].id").value(users.get(3).getId()))
+                .andExpect(jsonPath("$.data[3].id").value(users.get(2).getId()))
+                .andExpect(jsonPath("$.next").isEmpty());
+    }
+
+    @Test
+    void givenUsers_whenSearchUsersAfterCursor_thenReturnNextPage() throws Exception {
+        String next = new UserSearchCursor(UserSearchRank.PREFIX, users.get(1).getId()).encode();
+
+        mvc.perform(get(URI_USERS_SEARCH + "?q=quokka&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].email").value("quokka@gmail.com"))
+                .andExpect(jsonPath("$.data[1].email").value("quokkas.fan@gmail.com"))
+                .andExpect(jsonPath("$.next").value(next));
+        mvc.perform(get(URI_USERS_SEARCH + "?q=quokka&limit=2&after=" + next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].email").value("carl@gmail.com"))
+                .andExpect(jsonPath("$.data[1].email").value("mr.quokka@gmail.com"))
+                .andExpect(jsonPath("$.next").isEmpty());
+    }
+
+    @Test
+    void whenSearchUsersWithWildcards_thenMatchThemLiterally() throws Exception {
+        mvc.perform(get(URI_USERS_SEARCH + "?q=quo%25ka"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(0));
+        mvc.perform(get(URI_USERS_SEARCH + "?q=r_quokka"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(0));
+    }
+
+    @Test
+    void whenSearchUsersWithShortQuery_thenReturnBadRequestError() throws Exception {
+        mvc.perform(get(URI_USERS_SEARCH + "?q=qu"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Search query must be at least 3 characters"))
+                .andExpect(jsonPath("$.path").value(URI_USERS_SEARCH));
+    }
+
+    @Test
+    void whenSearchUsersWithInvalidCursor_thenReturnBadRequestError() throws Exception {
+        mvc.perform(get(URI_USERS_SEARCH + "?q=quokka&after=" + new UserCursor(null, 1L).encode()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.path").value(URI_USERS_SEARCH));
+    }
+
+    @Test
+    void givenBroadQuery_whenSearchUsersPageByPage_thenReadOnlyBoundedRowsPerPage() throws Exception {
+        List<UserEntity> broad = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            broad.add(new UserEntity("broad" + i + "@gmail.com", "Broad", "User", Date.valueOf("1955-05-01")));
+        }
+        List<Long> ids = userRepository.insertAll(broad).stream().map(UserEntity::getId).toList();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Long> found = new ArrayList<>();
+        String after = null;
+        do {
+            String body = mvc.perform(get(URI_USERS_SEARCH + "?q=broad&limit=" + MAX_CANDIDATES + (after == null ? "" : "&after=" + after)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(body);
+            page.get("data").forEach(user -> found.add(user.get("id").asLong()));
+            after = page.get("next").isNull() ? null : page.get("next").asText();
+        } while (after != null);
+
+        assertThat(found).containsExactlyElementsOf(ids);
+        assertThat(statistics.getQueries()).anyMatch(query -> query.startsWith(SELECT_CANDIDATES));
+        for (String query : statistics.getQueries()) {
+            QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+            // A page of MAX_CANDIDATES is fetched with one extra row, like the candidates, never all the matches
+            assertThat(queryStatistics.getExecutionRowCount())
+                    .isLessThanOrEqualTo(queryStatistics.getExecutionCount() * (MAX_CANDIDATES + 1));
+        }
+    }
+}
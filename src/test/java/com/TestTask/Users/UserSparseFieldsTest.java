@@ -0,0 +1,118 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserSparseFieldsTest {
+
+    public static final String URI_USERS = "/api/users";
+    public static final Date START = Date.valueOf("1966-01-01");
+    public static final Date END = Date.valueOf("1966-12-31");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<UserEntity> users = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        for (int i = 1; i <= 3; i++) {
+            UserEntity user = new UserEntity("sparse" + i + "@gmail.com", "sparse", "user",
+                    Date.valueOf("1966-0" + i + "-01"));
+            user.setAddress("Kyiv");
+            users.add(userRepository.save(user));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void givenFields_whenGetUsersPageByPage_thenWriteOnlyTheSelectedFields() throws Exception {
+        List<String> emails = new ArrayList<>();
+        String after = null;
+        do {
+            JsonNode page = getJson(URI_USERS + "?start=" + START + "&end=" + END + "&limit=2&fields=email,address"
+                    + (after == null ? "" : "&after=" + after));
+            for (JsonNode user : page.get("data")) {
+                assertThat(user.properties()).extracting(field -> field.getKey()).containsExactly("email", "address");
+                assertThat(user.get("address").asText()).isEqualTo("Kyiv");
+                emails.add(user.get("email").asText());
+            }
+            after = page.get("next").isNull() ? null : page.get("next").asText();
+        } while (after != null);
+
+        assertThat(emails).containsExactly("sparse1@gmail.com", "sparse2@gmail.com", "sparse3@gmail.com");
+    }
+
+    @Test
+    void givenFields_whenGetUserById_thenWriteOnlyTheSelectedFields() throws Exception {
+        UserEntity user = users.get(0);
+        mvc.perform(get(URI_USERS + "/" + user.getId() + "?fields=firstName,birthDate"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.data.firstName").value("sparse"))
+                .andExpect(jsonPath("$.data.birthDate").value("1966-01-01"))
+                .andExpect(jsonPath("$.data.email").doesNotExist())
+                .andExpect(jsonPath("$.data.id").doesNotExist());
+    }
+
+    @Test
+    void givenFields_whenFindAllProjected_thenLoadOnlyTheSelectedColumns() {
+        List<UserDTO> projected = userRepository.findAllProjected(EnumSet.of(UserField.ID, UserField.EMAIL),
+                START, END, null, 10);
+
+        assertThat(projected).extracting(UserDTO::email)
+                .containsExactly("sparse1@gmail.com", "sparse2@gmail.com", "sparse3@gmail.com");
+        assertThat(projected).allSatisfy(user -> {
+            assertThat(user.id()).isNotNull();
+            assertThat(user.address()).isNull();
+            assertThat(user.birthDate()).isNull();
+        });
+    }
+
+    @Test
+    void whenGetUsersWithUnknownField_thenReturnBadRequest() throws Exception {
+        mvc.perform(get(URI_USERS + "?fields=email,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown field password"));
+    }
+
+    private JsonNode getJson(String uri) throws Exception {
+        String body = mvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
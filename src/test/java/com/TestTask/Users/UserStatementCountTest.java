@@ -0,0 +1,142 @@
+package com.TestTask.Users;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Asserts the number of SQL statements each endpoint sends to the embedded database, so that an
+ * extra round trip fails the build.
+ */
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.TestTask.Users.SqlStatementCounter")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserStatementCountTest {
+
+    public static final String URI_USERS = "/api/users";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private UserEmailFilter emailFilter;
+
+    private UserEntity user;
+
+    // Emails are unique, so every test writes its own
+    private String tag;
+
+    @BeforeEach
+    void init() {
+        tag = Long.toString(System.nanoTime());
+        user = userRepository.insertAll(List.of(
+                new UserEntity("count" + tag + "@gmail.com", "count", "user", Date.valueOf("1990-01-01")))).get(0);
+        userCache.invalidateAll();
+        emailFilter.rebuild();
+    }
+
+    @Test
+    void whenGetAllUsers_thenExecuteOneStatement() throws Exception {
+        assertStatements(get(URI_USERS + "?limit=5"), 1);
+        assertStatements(get(URI_USERS + "?start=1980-01-01&end=2000-01-01&limit=5"), 1);
+    }
+
+    @Test
+    void whenExportUsers_thenExecuteOneStatement() throws Exception {
+        assertStatements(get(URI_USERS + "/export"), 1);
+    }
+
+    @Test
+    void whenGetUserById_thenExecuteOneStatementAndNoneOnceCached() throws Exception {
+        assertStatements(get(URI_USERS + "/" + user.getId()), 1);
+        assertStatements(get(URI_USERS + "/" + user.getId()), 0);
+    }
+
+    @Test
+    void whenGetUserByIdWithMatchingETag_thenExecuteVersionQueryAndNoneOnceCached() throws Exception {
+        String eTag = "\"" + user.getVersion() + "\"";
+        assertStatements(get(URI_USERS + "/" + user.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag), status().isNotModified(), 1);
+        mvc.perform(get(URI_USERS + "/" + user.getId()));
+        assertStatements(get(URI_USERS + "/" + user.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag), status().isNotModified(), 0);
+    }
+
+    @Test
+    void whenCreateUser_thenExecuteOneStatement() throws Exception {
+        assertStatements(post(URI_USERS).contentType(MediaType.APPLICATION_JSON).content(body("created" + tag + "@gmail.com")), 1);
+    }
+
+    @Test
+    void whenUpdateUser_thenExecuteOneStatement() throws Exception {
+        assertStatements(put(URI_USERS + "/" + user.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body("updated" + tag + "@gmail.com")), 1);
+    }
+
+    @Test
+    void whenPartialUpdateUser_thenExecuteSelectAndUpdate() throws Exception {
+        assertStatements(patch(URI_USERS + "/" + user.getId())
+                .contentType("application/json-patch+json")
+                .content("[{\"op\": \"replace\", \"path\": \"/address\", \"value\": \"NY\"}]"), 2);
+    }
+
+    @Test
+    void whenPartialUpdateUserWithUnchangedValue_thenExecuteSelectOnly() throws Exception {
+        assertStatements(patch(URI_USERS + "/" + user.getId())
+                .contentType("application/json-patch+json")
+                .content("[{\"op\": \"replace\", \"path\": \"/firstName\", \"value\": \"count\"}]"), 1);
+    }
+
+    @Test
+    void whenDeleteUser_thenExecuteDeleteAndTombstoneInsert() throws Exception {
+        assertStatements(delete(URI_USERS + "/" + user.getId()), 2);
+    }
+
+    @Test
+    void whenBulkUpdateAndDeleteUsers_thenExecuteOneStatementPerUpdateAndThreePerDelete() throws Exception {
+        assertStatements(patch(URI_USERS + "?ids=" + user.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"address\": \"NY\"}"), 1);
+        assertStatements(delete(URI_USERS + "?ids=" + user.getId()), 3);
+    }
+
+    private void assertStatements(RequestBuilder request, long expected) throws Exception {
+        assertStatements(request, status().is2xxSuccessful(), expected);
+    }
+
+    private void assertStatements(RequestBuilder request, ResultMatcher status, long expected) throws Exception {
+        SqlStatementCounter.reset();
+        mvc.perform(request).andExpect(status);
+        assertThat(SqlStatementCounter.count()).isEqualTo(expected);
+    }
+
+    private static String body(String email) {
+        return "{" +
+                "\"email\": \"" + email + "\", " +
+                "\"firstName\": \"count\", " +
+                "\"lastName\": \"user\", " +
+                "\"birthDate\": \"1990-01-01\"" +
+                "}";
+    }
+}
@@ -0,0 +1,125 @@
+package com.TestTask.Users;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserStatsTest {
+
+    public static final String URI_STATS = "/api/users/stats";
+
+    @Value("${user.permittedAge}")
+    private int permittedAge;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<UserEntity> users = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void givenUsersAroundPermittedAge_whenGetAgeStats_thenSplitBucketsAtPermittedAge() throws Exception {
+        LocalDate today = LocalDate.now();
+        Map<Integer, Long> before = ageBuckets(5);
+
+        // Saved directly, as the API rejects users under the permitted age
+        save(today.minusYears(permittedAge));
+        save(today.minusYears(permittedAge).plusDays(1));
+        save(today.minusYears(permittedAge + 12));
+
+        Map<Integer, Long> after = ageBuckets(5);
+        assertThat(after.get(0) - before.get(0)).isEqualTo(1);
+        assertThat(after.get(permittedAge) - before.getOrDefault(permittedAge, 0L)).isEqualTo(1);
+        assertThat(after.get(permittedAge + 10) - before.getOrDefault(permittedAge + 10, 0L)).isEqualTo(1);
+    }
+
+    @Test
+    void givenUsers_whenGetBirthdayStats_thenCountPerMonthAndDayOfYear() throws Exception {
+        JsonNode before = getStats("/birthdays");
+
+        save(LocalDate.of(1964, 2, 29));
+        save(LocalDate.of(1963, 3, 1));
+        save(LocalDate.of(1963, 12, 31));
+
+        JsonNode after = getStats("/birthdays");
+        assertThat(delta(before, after, "months", 1)).isEqualTo(1);
+        assertThat(delta(before, after, "months", 2)).isEqualTo(1);
+        assertThat(delta(before, after, "months", 11)).isEqualTo(1);
+        assertThat(delta(before, after, "daysOfYear", 59)).isEqualTo(1);
+        assertThat(delta(before, after, "daysOfYear", 60)).isEqualTo(1);
+        assertThat(delta(before, after, "daysOfYear", 365)).isEqualTo(1);
+    }
+
+    @Test
+    void givenUsers_whenCountByBirthDateRange_thenCountOnlyUsersInRange() throws Exception {
+        save(LocalDate.of(1963, 3, 1));
+        save(LocalDate.of(1963, 12, 31));
+        save(LocalDate.of(1964, 1, 1));
+
+        assertThat(getStats("/count?start=1963-01-01&end=1963-12-31").get("count").asLong()).isEqualTo(2);
+        assertThat(getStats("/count").get("count").asLong()).isEqualTo(userRepository.count());
+    }
+
+    @Test
+    void whenGetAgeStatsWithInvalidBucketSize_thenReturnBadRequest() throws Exception {
+        mvc.perform(get(URI_STATS + "/ages?bucketSize=0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Bucket size must be between 1 and 150"));
+    }
+
+    private Map<Integer, Long> ageBuckets(int bucketSize) throws Exception {
+        JsonNode stats = getStats("/ages?bucketSize=" + bucketSize);
+        assertThat(stats.get("permittedAge").asInt()).isEqualTo(permittedAge);
+        Map<Integer, Long> buckets = new HashMap<>();
+        stats.get("buckets").forEach(bucket -> buckets.put(bucket.get("from").asInt(), bucket.get("count").asLong()));
+        return buckets;
+    }
+
+    private static long delta(JsonNode before, JsonNode after, String field, int index) {
+        return after.get(field).get(index).asLong() - before.get(field).get(index).asLong();
+    }
+
+    private JsonNode getStats(String path) throws Exception {
+        String body = mvc.perform(get(URI_STATS + path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("data");
+    }
+
+    private void save(LocalDate birthDate) {
+        users.add(userRepository.save(new UserEntity("stats" + users.size() + "@gmail.com", "stats", "user",
+                Date.valueOf(birthDate))));
+    }
+}
@@ -0,0 +1,143 @@
+package com.TestTask.Users;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"user.writeBehind.enabled=true", "user.writeBehind.maxDelay=50ms"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserWriteBehindTest {
+
+    public static final String URI_USERS = "/api/users";
+    public static final Date START = Date.valueOf("1958-01-01");
+    public static final Date END = Date.valueOf("1958-12-31");
+    public static final int USERS = 20;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserWriteBehind writeBehind;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void init() {
+        userRepository.deleteAllMatching(null, START, END);
+    }
+
+    @Test
+    void whenCreateUsersConcurrently_thenCommitThemTogether() throws Exception {
+        DistributionSummary batchSizes = meterRegistry.get("users.writeBehind.batch.size").summary();
+        long batches = batchSizes.count();
+        double committed = batchSizes.totalAmount();
+
+        List<Integer> statuses = createConcurrently(i -> "burst" + i + "@gmail.com");
+
+        assertThat(statuses).containsOnly(201);
+        assertThat(userRepository.findAll().stream().filter(user -> user.getEmail().startsWith("burst"))).hasSize(USERS);
+        assertThat(batchSizes.totalAmount() - committed).isEqualTo(USERS);
+        assertThat(batchSizes.count() - batches).isLessThan(USERS);
+    }
+
+    @Test
+    void whenCreateUsersWithSameEmailConcurrently_thenFailOnlyDuplicates() throws Exception {
+        List<Integer> statuses = createConcurrently(i -> i < 2 ? "same@gmail.com" : "unique" + i + "@gmail.com");
+
+        assertThat(statuses.stream().filter(status -> status == 201)).hasSize(USERS - 1);
+        assertThat(statuses.stream().filter(status -> status == 409)).hasSize(1);
+    }
+
+    @Test
+    void givenStoppedDispatcher_whenCreateUser_thenReturnServiceUnavailable() throws Exception {
+        writeBehind.stop();
+        try {
+            mvc.perform(post(URI_USERS)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body("stopped@gmail.com")))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.message").value("Too many pending writes"));
+        } finally {
+            writeBehind.start();
+        }
+    }
+
+    @Test
+    void givenFailingSupplier_whenSubmit_thenFailOnlyThatUserAndKeepDispatching() throws Exception {
+        CompletableFuture<UserEntity> failed = writeBehind.submit(() -> {
+            throw new IllegalStateException("Supplier failed");
+        });
+        CompletableFuture<UserEntity> errored = writeBehind.submit(() -> {
+            throw new AssertionError("Supplier errored");
+        });
+
+        assertThat(failed).failsWithin(Duration.ofSeconds(5))
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(IllegalStateException.class);
+        assertThat(errored).failsWithin(Duration.ofSeconds(5))
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(AssertionError.class);
+        mvc.perform(post(URI_USERS)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("after-failure@gmail.com")))
+                .andExpect(status().isCreated());
+    }
+
+    private List<Integer> createConcurrently(IntFunction<String> email) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(USERS);
+        try {
+            List<Future<Integer>> responses = new ArrayList<>();
+            for (int i = 0; i < USERS; i++) {
+                String body = body(email.apply(i));
+                responses.add(executor.submit(() -> mvc.perform(post(URI_USERS)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                        .andReturn().getResponse().getStatus()));
+            }
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> response : responses) {
+                statuses.add(response.get());
+            }
+            return statuses;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String body(String email) {
+        return "{" +
+                "\"email\": \"" + email + "\", " +
+                "\"firstName\": \"write\", " +
+                "\"lastName\": \"behind\", " +
+                "\"birthDate\": \"1958-06-01\"" +
+                "}";
+    }
+}
@@ -0,0 +1,114 @@
+package com.TestTask.Users;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Compares commits/sec and rows/sec of concurrent POST /api/users with one transaction per
+ * request against the write-behind path. Run with
+ * {@code mvn test -Dtest=UserWriteBehindThroughputTest -Dbenchmark=true}. An in-memory H2 commit
+ * costs next to nothing, so to see what fewer commits save, point {@code spring.datasource.url}
+ * at PostgreSQL.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserWriteBehindThroughputTest {
+
+    private static final int ROWS = 20_000;
+
+    private static final int CLIENTS = 64;
+
+    @Nested
+    class PerRequestTransactions extends Measurement {
+
+        @Test
+        void measureCreateThroughput() throws Exception {
+            measure("per-request", "single");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "user.writeBehind.enabled=true")
+    class WriteBehind extends Measurement {
+
+        @Test
+        void measureCreateThroughput() throws Exception {
+            measure("write-behind", "behind");
+        }
+    }
+
+    /**
+     * Each nested class runs in its own context, so the beans are injected here rather than into
+     * the enclosing class.
+     */
+    abstract class Measurement {
+
+        @Autowired
+        private MockMvc mvc;
+
+        @Autowired
+        private UserEmailFilter emailFilter;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        void measure(String mode, String prefix) throws Exception {
+            // A ready filter answers new emails without an existence query, leaving only the inserts
+            emailFilter.rebuild();
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+            long start = System.nanoTime();
+            try {
+                List<Future<Integer>> responses = new ArrayList<>(ROWS);
+                for (int i = 0; i < ROWS; i++) {
+                    String body = user(prefix + i);
+                    responses.add(executor.submit(() -> mvc.perform(post("/api/users")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(body))
+                            .andReturn().getResponse().getStatus()));
+                }
+                for (Future<Integer> response : responses) {
+                    assertThat(response.get()).isEqualTo(201);
+                }
+            } finally {
+                executor.shutdown();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long commits = statistics.getSuccessfulTransactionCount();
+            System.out.printf("%s create: %.0f rows/sec, %d commits, %.0f commits/sec, %.1f rows/commit%n",
+                    mode, ROWS / seconds, commits, commits / seconds, (double) ROWS / commits);
+        }
+    }
+
+    private static String user(String name) {
+        return "{" +
+                "\"email\": \"" + name + "@gmail.com\", " +
+                "\"firstName\": \"" + name + "\", " +
+                "\"lastName\": \"user\", " +
+                "\"birthDate\": \"1990-01-01\"" +
+                "}";
+    }
+}
@@ -0,0 +1,73 @@
+package com.TestTask.Users;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"user.writeBehind.enabled=true", "user.writeBehind.maxDelay=50ms",
+        "user.writeBehind.timeout=1ns", "user.birthDateIndex.enabled=true"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserWriteBehindTimeoutTest {
+
+    public static final String URI_USERS = "/api/users";
+    public static final Date START = Date.valueOf("1968-01-01");
+    public static final Date END = Date.valueOf("1968-12-31");
+    public static final String EMAIL = "late@gmail.com";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserBirthDateIndex birthDateIndex;
+
+    @Autowired
+    private UserEmailFilter emailFilter;
+
+    @BeforeEach
+    void init() {
+        userRepository.deleteAllMatching(null, START, END);
+        birthDateIndex.rebuild();
+    }
+
+    @Test
+    void givenTimedOutCreate_whenBatchCommits_thenNotifyListeners() throws Exception {
+        mvc.perform(post(URI_USERS)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{" +
+                                "\"email\": \"" + EMAIL + "\", " +
+                                "\"firstName\": \"write\", " +
+                                "\"lastName\": \"behind\", " +
+                                "\"birthDate\": \"1968-06-01\"" +
+                                "}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message").value("Timed out waiting for the write"));
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        List<UserCursor> entries = birthDateIndex.findEntries(START, END, null, 10);
+        while (entries.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            entries = birthDateIndex.findEntries(START, END, null, 10);
+        }
+
+        assertThat(entries).singleElement().extracting(UserCursor::birthDate).isEqualTo(Date.valueOf("1968-06-01"));
+        assertThat(emailFilter.mightContain(UserEmailFilter.normalize(EMAIL))).isTrue();
+        assertThat(userRepository.existsByNormalizedEmail(UserEmailFilter.normalize(EMAIL))).isTrue();
+    }
+}
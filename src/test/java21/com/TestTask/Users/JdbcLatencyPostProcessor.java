@@ -0,0 +1,59 @@
+package com.TestTask.Users;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Delays every JDBC statement execution to stand in for a networked database, which the embedded
+ * one cannot provide: it never blocks.
+ */
+class JdbcLatencyPostProcessor implements BeanPostProcessor {
+
+    private final long latencyMillis;
+
+    JdbcLatencyPostProcessor(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return delayed(Connection.class, super.getConnection());
+                }
+            };
+        }
+        return bean;
+    }
+
+    private <T> T delayed(Class<T> type, T target) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                Thread.sleep(latencyMillis);
+            }
+            Object result = invoke(method, target, args);
+            if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement) {
+                return delayed(PreparedStatement.class, statement);
+            }
+            return result;
+        }));
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.TestTask.Users;
+
+import com.TestTask.TestTaskApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares GET /api/users/{id} throughput on Tomcat's platform thread pool against virtual threads.
+ * Every JDBC execution is delayed by {@link #DB_LATENCY_MILLIS} through {@link JdbcLatencyPostProcessor},
+ * and the cache is disabled so each request reaches the database. Run on a JDK 21 with
+ * {@code mvn -Pjava21 test -Dtest=UserThreadingLoadTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserThreadingLoadTest {
+
+    private static final int USERS = 1_000;
+    private static final int CLIENTS = 400;
+    private static final int REQUESTS = 40_000;
+    private static final int PLATFORM_THREADS = 50;
+    private static final int POOL_SIZE = 100;
+    private static final long DB_LATENCY_MILLIS = 5;
+
+    @Test
+    void comparePlatformWithVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("platform threads (max %d): %.0f req/sec, p99 %.1f ms%n",
+                PLATFORM_THREADS, platform.requestsPerSecond, platform.p99Millis);
+        System.out.printf("virtual threads (pool %d): %.0f req/sec, p99 %.1f ms (%.1fx)%n",
+                POOL_SIZE, virtual.requestsPerSecond, virtual.p99Millis,
+                virtual.requestsPerSecond / platform.requestsPerSecond);
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TestTaskApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.threads.max=" + PLATFORM_THREADS,
+                        "server.tomcat.accept-count=" + CLIENTS,
+                        "spring.datasource.url=jdbc:h2:mem:load-" + mode + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                        "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "user.concurrency.maxRequests=" + CLIENTS,
+                        "user.concurrency.acquireTimeout=30s",
+                        "user.cache.maximumSize=0")
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .addBeanPostProcessor(new JdbcLatencyPostProcessor(DB_LATENCY_MILLIS)))
+                .run();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Long> ids = seed(context.getBean(UserRepository.class));
+            int port = Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+            HttpClient client = HttpClient.newBuilder().executor(clients).build();
+
+            long start = System.nanoTime();
+            List<Future<long[]>> results = new ArrayList<>(CLIENTS);
+            for (int c = 0; c < CLIENTS; c++) {
+                results.add(clients.submit(() -> {
+                    long[] latencies = new long[REQUESTS / CLIENTS];
+                    for (int r = 0; r < latencies.length; r++) {
+                        Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/users/" + id)).build();
+                        long requestStart = System.nanoTime();
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        latencies[r] = System.nanoTime() - requestStart;
+                        assertThat(status).isEqualTo(200);
+                    }
+                    return latencies;
+                }));
+            }
+            long[] latencies = new long[0];
+            for (Future<long[]> result : results) {
+                long[] clientLatencies = result.get();
+                latencies = Arrays.copyOf(latencies, latencies.length + clientLatencies.length);
+                System.arraycopy(clientLatencies, 0, latencies, latencies.length - clientLatencies.length, clientLatencies.length);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Arrays.sort(latencies);
+            return new Result(latencies.length / seconds, latencies[(int) (latencies.length * 0.99)] / 1e6);
+        }
+    }
+
+    private static List<Long> seed(UserRepository userRepository) {
+        List<UserEntity> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new UserEntity("load" + i + "@gmail.com", "load", "user", Date.valueOf("1980-01-01")));
+        }
+        return userRepository.insertAll(users).stream().map(UserEntity::getId).toList();
+    }
+
+    private record Result(double requestsPerSecond, double p99Millis) {}
+}
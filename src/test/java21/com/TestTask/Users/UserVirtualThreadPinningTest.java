@@ -0,0 +1,120 @@
+package com.TestTask.Users;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Date;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Serves the main endpoints on virtual threads and fails on any {@code jdk.VirtualThreadPinned}
+ * event, i.e. a virtual thread that blocked while holding a monitor (typically a synchronized
+ * block around a JDBC call). Statements are delayed by {@link JdbcLatencyPostProcessor}, so any
+ * monitor held around data access is caught blocking. Requests time out rather than hang, since
+ * pinned threads waiting for connections can starve the carriers of the threads holding them.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=4"})
+@ActiveProfiles("test")
+class UserVirtualThreadPinningTest {
+
+    private static final int CONCURRENCY = 64;
+
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    @TestConfiguration
+    static class JdbcLatencyConfiguration {
+
+        @Bean
+        static BeanPostProcessor jdbcLatencyPostProcessor() {
+            return new JdbcLatencyPostProcessor(1);
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Test
+    void whenServingRequestsOnVirtualThreads_thenNoThreadIsPinned() throws Exception {
+        List<UserEntity> users = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            users.add(new UserEntity("pinning" + i + "@gmail.com", "pinning", "user", Date.valueOf("1985-01-01")));
+        }
+        users = userRepository.insertAll(users);
+        userCache.invalidateAll();
+
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            recording.enable(PINNED).withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent(PINNED, pinned::add);
+            recording.startAsync();
+
+            HttpClient client = HttpClient.newBuilder().executor(clients).build();
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (UserEntity user : users) {
+                String uri = "http://localhost:" + port + "/api/users/" + user.getId();
+                statuses.add(clients.submit(() -> send(client, HttpRequest.newBuilder(URI.create(uri)).GET())));
+                statuses.add(clients.submit(() -> send(client, HttpRequest.newBuilder(URI.create(uri))
+                        .header("Content-Type", "application/json-patch+json")
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                                "[{\"op\": \"replace\", \"path\": \"/address\", \"value\": \"NY\"}]")))));
+                statuses.add(clients.submit(() -> send(client, HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/users?limit=20")).GET())));
+            }
+            for (Future<Integer> status : statuses) {
+                assertThat(status.get()).isEqualTo(200);
+            }
+            recording.stop();
+        }
+
+        assertThat(pinned).as(() -> pinned.stream().map(UserVirtualThreadPinningTest::describe)
+                .collect(Collectors.joining("\n\n"))).isEmpty();
+    }
+
+    private static int send(HttpClient client, HttpRequest.Builder request) throws Exception {
+        return client.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static String describe(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return event.toString();
+        }
+        return event.getStackTrace().getFrames().stream()
+                .limit(20)
+                .map(RecordedFrame::getMethod)
+                .map(method -> method.getType().getName() + "." + method.getName())
+                .collect(Collectors.joining("\n  at ", "pinned at ", ""));
+    }
+}
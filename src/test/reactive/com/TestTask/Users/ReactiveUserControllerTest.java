@@ -0,0 +1,741 @@
+package com.TestTask.Users;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.sql.Date;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive?options=MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="})
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactiveUserControllerTest {
+
+    public static final String URI_USERS = "/api/users";
+    public static final String EMAIL = "test@gmail.com";
+    public static final String FIRST_NAME = "test";
+    public static final String LAST_NAME = "user";
+    public static final Date BIRTH_DATE = Date.valueOf("2000-09-05");
+    public static final String ADDRESS = "NY";
+    public static final String PHONE_NUMBER = "380123456789";
+    public static final MediaType APPLICATION_JSON_PATCH = MediaType.parseMediaType("application/json-patch+json");
+    private UserEntity user;
+    private String uriUsersId;
+
+    public static final String MESSAGE_ENTITY_NOT_FOUND = "Unable to find UserEntity with id %s";
+    public static final String MESSAGE_BAD_REQUEST_WITH_MISSING_REQUIRED_FIELD = "The %s field must not be null";
+    public static final String MESSAGE_BAD_REQUEST_WITH_EMPTY_REQUIRED_FIELD = "The %s field must not be blank";
+    public static final String MESSAGE_BAD_REQUEST_WITH_INVALID_EMAIL_FIELD = "The email field must be a well-formed email address";
+    public static final String MESSAGE_BAD_REQUEST_WITH_BELOW_ALLOWED_AGE = "You cannot use this service, because you're under %s";
+    public static final String MESSAGE_BAD_REQUEST_WITH_FUTURE_DATE_IN_DATE_FIELD = "The %s field must be a past date";
+    public static final String MESSAGE_BAD_REQUEST_WITH_INVALID_VALUE = "The %s field has invalid value '%s'";
+
+    @Value("${user.permittedAge}")
+    private int permittedAge;
+
+    @Value("${user.page.maxLimit}")
+    private int maxPageLimit;
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ReactiveUserRepository userRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeEach
+    void init() {
+        databaseClient.sql("delete from users").then().block();
+        user = insert(new UserEntity(EMAIL, FIRST_NAME, LAST_NAME, BIRTH_DATE, ADDRESS, PHONE_NUMBER)).get(0);
+        uriUsersId = URI_USERS + "/" + user.getId();
+    }
+
+    private List<UserEntity> insert(UserEntity... users) {
+        return userRepository.insertAll(List.of(users)).collectList().block();
+    }
+
+    @Test
+    void givenUsers_whenGetAllUsers_thenReturnJsonArray() {
+        client.get().uri(URI_USERS).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.data").isArray()
+                .jsonPath("$.data.length()").isEqualTo(1)
+                .jsonPath("$.data[0].email").isEqualTo(EMAIL)
+                .jsonPath("$.data[0].firstName").isEqualTo(FIRST_NAME)
+                .jsonPath("$.data[0].lastName").isEqualTo(LAST_NAME)
+                .jsonPath("$.data[0].birthDate").isEqualTo(BIRTH_DATE.toString())
+                .jsonPath("$.next").isEmpty();
+    }
+
+    @Test
+    void givenMoreUsersThanLimit_whenGetAllUsers_thenReturnNextCursor() {
+        UserEntity second = insert(new UserEntity("second@gmail.com", FIRST_NAME, LAST_NAME, BIRTH_DATE)).get(0);
+        String next = new UserCursor(null, user.getId()).encode();
+
+        client.get().uri(URI_USERS + "?limit=1").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.length()").isEqualTo(1)
+                .jsonPath("$.data[0].id").isEqualTo(user.getId())
+                .jsonPath("$.next").isEqualTo(next);
+
+        client.get().uri(URI_USERS + "?limit=1&after=" + next).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.length()").isEqualTo(1)
+                .jsonPath("$.data[0].id").isEqualTo(second.getId())
+                .jsonPath("$.next").isEmpty();
+    }
+
+    @Test
+    void givenUsers_whenGetAllUsersByBirthDateAfterCursor_thenReturnNextPage() {
+        UserEntity older = insert(new UserEntity("older@gmail.com", FIRST_NAME, LAST_NAME, Date.valueOf("1995-01-01"))).get(0);
+        Date start = Date.valueOf("1990-01-01");
+        Date end = Date.valueOf("2005-01-01");
+        String after = new UserCursor(older.getBirthDate(), older.getId()).encode();
+
+        client.get().uri(URI_USERS + "?start=" + start + "&end=" + end + "&limit=1").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data[0].id").isEqualTo(older.getId())
+                .jsonPath("$.next").isEqualTo(after);
+
+        client.get().uri(URI_USERS + "?start=" + start + "&end=" + end + "&after=" + after).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.length()").isEqualTo(1)
+                .jsonPath("$.data[0].id").isEqualTo(user.getId())
+                .jsonPath("$.next").isEmpty();
+    }
+
+    @Test
+    void whenGetAllUsersWithInvalidCursor_thenReturnBadRequestError() {
+        client.get().uri(URI_USERS + "?after=" + new UserCursor(BIRTH_DATE, 1L).encode()).exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo(HttpStatus.BAD_REQUEST.name())
+                .jsonPath("$.path").isEqualTo(URI_USERS);
+    }
+
+    @Test
+    void whenGetAllUsersWithLimitAboveMaximum_thenReturnBadRequestError() {
+        client.get().uri(URI_USERS + "?limit=" + (maxPageLimit + 1)).exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo(HttpStatus.BAD_REQUEST.name())
+                .jsonPath("$.message").isEqualTo("Limit must be between 1 and " + maxPageLimit)
+                .jsonPath("$.path").isEqualTo(URI_USERS);
+    }
+
+    @Test
+    void whenGetAllUsersWithStartDateGreaterThanAndEndDate_thenReturnBadRequestError() {
+        client.get().uri(URI_USERS + "?start=2009-02-06&end=2008-06-02").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo(HttpStatus.BAD_REQUEST.name())
+                .jsonPath("$.message").isEqualTo("Start date greater than end date")
+                .jsonPath("$.path").isEqualTo(URI_USERS);
+    }
+
+    @Test
+    void givenUsers_whenExportUsers_thenReturnNdjson() {
+        insert(new UserEntity("other@gmail.com", FIRST_NAME, LAST_NAME, BIRTH_DATE));
+
+        String body = client.get().uri(URI_USERS + "/export").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/x-ndjson")
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(body).contains("\"email\":\"" + EMAIL + "\"");
+        assertThat(body).endsWith("\"email\":\"other@gmail.com\",\"firstName\":\"" + FIRST_NAME +
+                "\",\"lastName\":\"" + LAST_NAME + "\",\"birthDate\":\"" + BIRTH_DATE +
+                "\",\"address\":null,\"phoneNumber\":null}\n");
+    }
+
+    @Test
+    void whenExportUsersWithStartDateGreaterThanEndDate_thenReturnBadRequestError() {
+        client.get().uri(URI_USERS + "/export?start=2009-02-06&end=2008-06-02").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Start date greater than end date");
+    }
+
+    @Test
+    void givenUser_whenGetUserById_thenReturnUser() {
+        client.get().uri(uriUsersId).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectBody()
+                .jsonPath("$.data.email").isEqualTo(EMAIL)
+                .jsonPath("$.data.firstName").isEqualTo(FIRST_NAME)
+                .jsonPath("$.data.lastName").isEqualTo(LAST_NAME)
+                .jsonPath("$.data.birthDate").isEqualTo(BIRTH_DATE.toString())
+                .jsonPath("$.data.address").isEqualTo(ADDRESS)
+                .jsonPath("$.data.phoneNumber").isEqualTo(PHONE_NUMBER);
+    }
+
+    @Test
+    void givenUser_whenGetUserByIdWithMatchingETag_thenReturnNotModified() {
+        client.get().uri(uriUsersId).header(HttpHeaders.IF_NONE_MATCH, "W/\"1\", \"0\"").exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void givenUser_whenGetUserByIdWithStaleETag_thenReturnUserWithCurrentETag() {
+        client.put().uri(uriUsersId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body(EMAIL, FIRST_NAME, LAST_NAME, BIRTH_DATE.toString()))
+                .exchange()
+                .expectStatus().isOk();
+
+        client.get().uri(uriUsersId).header(HttpHeaders.IF_NONE_MATCH, "\"0\"").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectBody()
+                .jsonPath("$.data.email").isEqualTo(EMAIL);
+    }
+
+    @Test
+    void givenUser_whenUpdateUserWithStaleIfMatch_thenReturnPreconditionFailedError() {
+        String updatedEmail = "updatedEmail@gmail.com";
+        client.put().uri(uriUsersId)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body(updatedEmail, FIRST_NAME, LAST_NAME, BIRTH_DATE.toString()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+
+        client.put().uri(uriUsersId)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body(EMAIL, FIRST_NAME, LAST_NAME, BIRTH_DATE.toString()))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED)
+                .expectBody()
+                .jsonPath("$.error").isEqualTo(HttpStatus.PRECONDITION_FAILED.name());
+
+        client.get().uri(uriUsersId).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.email").isEqualTo(updatedEmail);
+    }
+
+    @Test
+    void givenUser_whenPartialUpdateUserWithStaleIfMatch_thenReturnPreconditionFailedError() {
+        String body = "[{\"op\": \"replace\", \"path\": \"/firstName\", \"value\": \"patched\"}]";
+        client.patch().uri(uriUsersId)
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .contentType(APPLICATION_JSON_PATCH)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        client.patch().uri(uriUsersId)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(APPLICATION_JSON_PATCH)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectBody()
+                .jsonPath("$.data.firstName").isEqualTo("patched");
+    }
+
+    @Test
+    void whenGetUserByIdWithNonExistentId_thenReturnEntityNotFoundError() {
+        long id = user.getId() + 1000;
+        client.get().uri(URI_USERS + "/" + id).exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo(HttpStatus.NOT_FOUND.name())
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_ENTITY_NOT_FOUND, id))
+                .jsonPath("$.path").isEqualTo(URI_USERS + "/" + id);
+    }
+
+    @Test
+    void whenCreateUser_thenReturnUser() {
+        client.post().uri(URI_USERS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body("created@gmail.com", FIRST_NAME, LAST_NAME, BIRTH_DATE.toString()))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectBody()
+                .jsonPath("$.data.id").isNotEmpty()
+                .jsonPath("$.data.email").isEqualTo("created@gmail.com")
+                .jsonPath("$.data.firstName").isEqualTo(FIRST_NAME)
+                .jsonPath("$.data.lastName").isEqualTo(LAST_NAME)
+                .jsonPath("$.data.birthDate").isEqualTo(BIRTH_DATE.toString());
+    }
+
+    @Test
+    void whenCreateUserWithMissingRequiredField_thenReturnBadRequestError() {
+        client.post().uri(URI_USERS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"firstName\": \"" + FIRST_NAME + "\", \"lastName\": \"" + LAST_NAME + "\", " +
+                        "\"birthDate\": \"" + BIRTH_DATE + "\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo(HttpStatus.BAD_REQUEST.name())
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_BAD_REQUEST_WITH_MISSING_REQUIRED_FIELD, "email"))
+                .jsonPath("$.path").isEqualTo(URI_USERS);
+    }
+
+    @Test
+    void whenCreateUserWithSeveralInvalidFields_thenReturnAllFieldErrors() {
+        client.post().uri(URI_USERS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"email\": \"invalid\", \"lastName\": \"\", \"birthDate\": \"" + BIRTH_DATE + "\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo(MESSAGE_BAD_REQUEST_WITH_INVALID_EMAIL_FIELD)
+                .jsonPath("$.errors.length()").isEqualTo(4)
+                .jsonPath("$.errors[0].field").isEqualTo("email")
+                .jsonPath("$.errors[1].field").isEqualTo("firstName")
+                .jsonPath("$.errors[1].message").isEqualTo("must not be null")
+                .jsonPath("$.errors[2].message").isEqualTo("must not be blank")
+                .jsonPath("$.errors[3].field").isEqualTo("lastName");
+    }
+
+    @Test
+    void whenCreateUserWithEmptyRequiredField_thenReturnBadRequestError() {
+        client.post().uri(URI_USERS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body("", FIRST_NAME, LAST_NAME, BIRTH_DATE.toString()))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_BAD_REQUEST_WITH_EMPTY_REQUIRED_FIELD, "email"))
+                .jsonPath("$.path").isEqualTo(URI_USERS);
+    }
+
+    @Test
+    void whenCreateUserWithInvalidEmail_thenReturnBadRequestError() {
+        client.post().uri(URI_USERS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body("test", FIRST_NAME, LAST_NAME, BIRTH_DATE.toString()))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo(MESSAGE_BAD_REQUEST_WITH_INVALID_EMAIL_FIELD)
+                .jsonPath("$.path").isEqualTo(URI_USERS);
+    }
+
+    @Test
+    void whenCreateUserWithInvalidFormatOfBirthDate_thenReturnBadRequestError() {
+        client.post().uri(URI_USERS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body(EMAIL, FIRST_NAME, LAST_NAME, "2015.09.09"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Bad Request")
+                .jsonPath("$.instance").isEqualTo(URI_USERS);
+    }
+
+    @Test
+    void whenCreateUserWithBelowAllowedAge_thenReturnBadRequestError() {
+        Date currentDate = new Date(new java.util.Date().getTime());
+
+        client.post().uri(URI_USERS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body(EMAIL, FIRST_NAME, LAST_NAME, currentDate.toString()))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo(HttpStatus.BAD_REQUEST.name())
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_BAD_REQUEST_WITH_BELOW_ALLOWED_AGE, permittedAge))
+                .jsonPath("$.path").isEqualTo(URI_USERS);
+    }
+
+    @Test
+    void whenCreateUserWithFutureDateInBirthDateField_thenReturnBadRequestError() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.YEAR, 5);
+        Date futureDate = new Date(calendar.getTime().getTime());
+
+        client.post().uri(URI_USERS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body(EMAIL, FIRST_NAME, LAST_NAME, futureDate.toString()))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_BAD_REQUEST_WITH_FUTURE_DATE_IN_DATE_FIELD, "birthDate"))
+                .jsonPath("$.path").isEqualTo(URI_USERS);
+    }
+
+    @Test
+    void whenCreateUsers_thenReturnCreatedUsersAndErrors() {
+        Date currentDate = new Date(new java.util.Date().getTime());
+
+        client.post().uri(URI_USERS + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[" + body("first@gmail.com", FIRST_NAME, LAST_NAME, BIRTH_DATE.toString()) + ", " +
+                        body("test", FIRST_NAME, LAST_NAME, BIRTH_DATE.toString()) + ", " +
+                        body(EMAIL, FIRST_NAME, LAST_NAME, currentDate.toString()) + ", " +
+                        body("second@gmail.com", FIRST_NAME, LAST_NAME, BIRTH_DATE.toString()) + "]")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.data.created.length()").isEqualTo(2)
+                .jsonPath("$.data.created[0].email").isEqualTo("first@gmail.com")
+                .jsonPath("$.data.created[1].email").isEqualTo("second@gmail.com")
+                .jsonPath("$.data.errors.length()").isEqualTo(2)
+                .jsonPath("$.data.errors[0].index").isEqualTo(1)
+                .jsonPath("$.data.errors[0].message").isEqualTo(MESSAGE_BAD_REQUEST_WITH_INVALID_EMAIL_FIELD)
+                .jsonPath("$.data.errors[1].index").isEqualTo(2)
+                .jsonPath("$.data.errors[1].message").isEqualTo(String.format(MESSAGE_BAD_REQUEST_WITH_BELOW_ALLOWED_AGE, permittedAge));
+
+        client.get().uri(URI_USERS).exchange()
+                .expectBody()
+                .jsonPath("$.data.length()").isEqualTo(3);
+    }
+
+    @Test
+    void whenCreateUsersWithOnlyInvalidUsers_thenReturnBadRequest() {
+        client.post().uri(URI_USERS + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"firstName\": \"" + FIRST_NAME + "\", \"lastName\": \"" + LAST_NAME + "\", " +
+                        "\"birthDate\": \"" + BIRTH_DATE + "\"}]")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.data.created.length()").isEqualTo(0)
+                .jsonPath("$.data.errors[0].index").isEqualTo(0)
+                .jsonPath("$.data.errors[0].message").isEqualTo(
+                        "The email field must not be blank, The email field must not be null");
+    }
+
+    @Test
+    void givenUser_whenUpdateUser_thenReturnUser() {
+        String updatedEmail = "updatedEmail@gmail.com";
+        String updatedFirstName = "updated first name";
+        String updatedLastName = "updated last name";
+        Date updatedBirthDate = Date.valueOf("1995-05-07");
+
+        client.put().uri(uriUsersId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body(updatedEmail, updatedFirstName, updatedLastName, updatedBirthDate.toString()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.email").isEqualTo(updatedEmail)
+                .jsonPath("$.data.firstName").isEqualTo(updatedFirstName)
+                .jsonPath("$.data.lastName").isEqualTo(updatedLastName)
+                .jsonPath("$.data.birthDate").isEqualTo(updatedBirthDate.toString());
+
+        client.get().uri(uriUsersId).exchange()
+                .expectBody()
+                .jsonPath("$.data.email").isEqualTo(updatedEmail)
+                .jsonPath("$.data.address").isEmpty();
+    }
+
+    @Test
+    void whenUpdateUserWithNonExistentId_thenReturnEntityNotFoundError() {
+        long id = user.getId() + 1000;
+        client.put().uri(URI_USERS + "/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body(EMAIL, FIRST_NAME, LAST_NAME, "2015-05-07"))
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo(HttpStatus.NOT_FOUND.name())
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_ENTITY_NOT_FOUND, id))
+                .jsonPath("$.path").isEqualTo(URI_USERS + "/" + id);
+    }
+
+    @Test
+    void givenUser_whenUpdateUserWithMissingRequiredField_thenReturnBadRequestError() {
+        client.put().uri(uriUsersId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"email\": \"" + EMAIL + "\", \"lastName\": \"" + LAST_NAME + "\", " +
+                        "\"birthDate\": \"" + BIRTH_DATE + "\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_BAD_REQUEST_WITH_MISSING_REQUIRED_FIELD, "firstName"))
+                .jsonPath("$.path").isEqualTo(uriUsersId);
+    }
+
+    @Test
+    void givenUser_whenUpdateUserWithBelowAllowedAge_thenReturnBadRequestError() {
+        Date currentDate = new Date(new java.util.Date().getTime());
+
+        client.put().uri(uriUsersId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body(EMAIL, FIRST_NAME, LAST_NAME, currentDate.toString()))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_BAD_REQUEST_WITH_BELOW_ALLOWED_AGE, permittedAge))
+                .jsonPath("$.path").isEqualTo(uriUsersId);
+    }
+
+    @Test
+    void givenUser_whenPartialUpdateUser_thenReturnUser() {
+        String updatedEmail = "updatedEmail@gmail.com";
+
+        client.patch().uri(uriUsersId)
+                .contentType(APPLICATION_JSON_PATCH)
+                .bodyValue("[{\"op\": \"replace\", \"path\": \"/email\", \"value\": \"" + updatedEmail + "\"}]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.email").isEqualTo(updatedEmail)
+                .jsonPath("$.data.firstName").isEqualTo(FIRST_NAME)
+                .jsonPath("$.data.lastName").isEqualTo(LAST_NAME)
+                .jsonPath("$.data.birthDate").isEqualTo(BIRTH_DATE.toString());
+    }
+
+    @Test
+    void givenUser_whenPartialUpdateUserWithUnchangedValue_thenKeepVersion() {
+        client.patch().uri(uriUsersId)
+                .contentType(APPLICATION_JSON_PATCH)
+                .bodyValue("[{\"op\": \"replace\", \"path\": \"/email\", \"value\": \"" + EMAIL + "\"}]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"");
+    }
+
+    @Test
+    void whenPartialUpdateUserWithNonExistentId_thenReturnEntityNotFoundError() {
+        long id = user.getId() + 1000;
+        client.patch().uri(URI_USERS + "/" + id)
+                .contentType(APPLICATION_JSON_PATCH)
+                .bodyValue("[{\"op\": \"replace\", \"path\": \"/email\", \"value\": \"updatedEmail@gmail.com\"}]")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_ENTITY_NOT_FOUND, id))
+                .jsonPath("$.path").isEqualTo(URI_USERS + "/" + id);
+    }
+
+    @Test
+    void givenUser_whenPartialUpdateUserWithInvalidFormatOfBirthDate_thenReturnBadRequestError() {
+        String birthDate = "2015.09.09";
+
+        client.patch().uri(uriUsersId)
+                .contentType(APPLICATION_JSON_PATCH)
+                .bodyValue("[{\"op\": \"replace\", \"path\": \"/birthDate\", \"value\": \"" + birthDate + "\"}]")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo(HttpStatus.BAD_REQUEST.name())
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_BAD_REQUEST_WITH_INVALID_VALUE, "birthDate", birthDate))
+                .jsonPath("$.errors[0].field").isEqualTo("birthDate")
+                .jsonPath("$.path").isEqualTo(uriUsersId);
+    }
+
+    @Test
+    void givenUser_whenPartialUpdateUserWithBellowAllowedAge_thenReturnBadRequestError() {
+        Date currentDate = new Date(new java.util.Date().getTime());
+
+        client.patch().uri(uriUsersId)
+                .contentType(APPLICATION_JSON_PATCH)
+                .bodyValue("[{\"op\": \"replace\", \"path\": \"/birthDate\", \"value\": \"" + currentDate + "\"}]")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_BAD_REQUEST_WITH_BELOW_ALLOWED_AGE, permittedAge));
+    }
+
+    @Test
+    void givenUser_whenPartialUpdateUserWithSeveralOperations_thenApplyThemInOrder() {
+        client.patch().uri(uriUsersId)
+                .contentType(APPLICATION_JSON_PATCH)
+                .bodyValue("[" +
+                        "{\"op\": \"test\", \"path\": \"/firstName\", \"value\": \"" + FIRST_NAME + "\"}, " +
+                        "{\"op\": \"copy\", \"from\": \"/firstName\", \"path\": \"/address\"}, " +
+                        "{\"op\": \"move\", \"from\": \"/address\", \"path\": \"/phoneNumber\"}, " +
+                        "{\"op\": \"add\", \"path\": \"/lastName\", \"value\": \"added\"}" +
+                        "]")
+                .exchange()
+                .expectStatus().isOk();
+
+        client.get().uri(uriUsersId).exchange()
+                .expectBody()
+                .jsonPath("$.data.lastName").isEqualTo("added")
+                .jsonPath("$.data.address").isEmpty()
+                .jsonPath("$.data.phoneNumber").isEqualTo(FIRST_NAME);
+    }
+
+    @Test
+    void whenPartialUpdateUserWithUnsupportedPath_thenReturnBadRequestError() {
+        client.patch().uri(uriUsersId)
+                .contentType(APPLICATION_JSON_PATCH)
+                .bodyValue("[{\"op\": \"replace\", \"path\": \"/id\", \"value\": 2}]")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("The id field cannot be updated");
+        client.patch().uri(uriUsersId)
+                .contentType(APPLICATION_JSON_PATCH)
+                .bodyValue("[{\"op\": \"add\", \"path\": \"/nickname\", \"value\": \"nick\"}]")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Unknown field nickname");
+    }
+
+    @Test
+    void givenUser_whenPartialUpdateUserRemovingRequiredField_thenReturnBadRequestError() {
+        client.patch().uri(uriUsersId)
+                .contentType(APPLICATION_JSON_PATCH)
+                .bodyValue("[{\"op\": \"remove\", \"path\": \"/email\"}]")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_BAD_REQUEST_WITH_MISSING_REQUIRED_FIELD, "email"));
+    }
+
+    @Test
+    void givenUser_whenPartialUpdateUserWithFailingTest_thenReturnConflictError() {
+        client.patch().uri(uriUsersId)
+                .contentType(APPLICATION_JSON_PATCH)
+                .bodyValue("[{\"op\": \"test\", \"path\": \"/firstName\", \"value\": \"other\"}]")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("The firstName field does not match the tested value");
+    }
+
+    @Test
+    void givenUser_whenDeleteUser_thenReturnJson() {
+        client.delete().uri(uriUsersId).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.message").isEqualTo("Successfully deleted");
+
+        client.get().uri(uriUsersId).exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void whenDeleteUserWithNonExistentId_thenReturnEntityNotFoundError() {
+        long id = user.getId() + 1000;
+        client.delete().uri(URI_USERS + "/" + id).exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo(HttpStatus.NOT_FOUND.name())
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_ENTITY_NOT_FOUND, id))
+                .jsonPath("$.path").isEqualTo(URI_USERS + "/" + id);
+    }
+
+    @Test
+    void givenUsers_whenDeleteUsersByIds_thenReturnAffectedCount() {
+        UserEntity other = insert(new UserEntity("other@gmail.com", FIRST_NAME, LAST_NAME, BIRTH_DATE)).get(0);
+
+        client.delete().uri(URI_USERS + "?ids=" + user.getId() + "," + other.getId() + "," + (other.getId() + 1000))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.affected").isEqualTo(2);
+    }
+
+    @Test
+    void whenDeleteUsersWithoutFilter_thenReturnBadRequestError() {
+        client.delete().uri(URI_USERS).exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo(HttpStatus.BAD_REQUEST.name())
+                .jsonPath("$.message").isEqualTo("Either ids or start and end dates are required")
+                .jsonPath("$.path").isEqualTo(URI_USERS);
+    }
+
+    @Test
+    void givenUsers_whenUpdateUsersByBirthDate_thenReturnAffectedCount() {
+        insert(new UserEntity("other@gmail.com", FIRST_NAME, LAST_NAME, Date.valueOf("1980-01-01")));
+
+        client.patch().uri(URI_USERS + "?start=1990-01-01&end=2005-01-01")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"address\": \"LA\", \"phoneNumber\": null}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.affected").isEqualTo(1);
+
+        client.get().uri(uriUsersId).exchange()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectBody()
+                .jsonPath("$.data.address").isEqualTo("LA")
+                .jsonPath("$.data.phoneNumber").isEmpty();
+    }
+
+    @Test
+    void whenUpdateUsersWithBelowAllowedAge_thenReturnBadRequestError() {
+        Date currentDate = new Date(new java.util.Date().getTime());
+
+        client.patch().uri(URI_USERS + "?ids=1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"birthDate\": \"" + currentDate + "\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_BAD_REQUEST_WITH_BELOW_ALLOWED_AGE, permittedAge));
+    }
+
+    @Test
+    void whenUpdateUsersWithUnknownOrReadOnlyField_thenReturnBadRequestError() {
+        client.patch().uri(URI_USERS + "?ids=1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"nickname\": \"test\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Unknown field nickname");
+
+        client.patch().uri(URI_USERS + "?ids=1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"id\": 5}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("The id field cannot be updated");
+    }
+
+    @Test
+    void whenUpdateUsersWithEmptyRequiredField_thenReturnBadRequestError() {
+        client.patch().uri(URI_USERS + "?ids=1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"firstName\": \"\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo(String.format(MESSAGE_BAD_REQUEST_WITH_EMPTY_REQUIRED_FIELD, "firstName"));
+    }
+
+    private static String body(String email, String firstName, String lastName, String birthDate) {
+        return "{" +
+                "\"email\": \"" + email + "\", " +
+                "\"firstName\": \"" + firstName + "\", " +
+                "\"lastName\": \"" + lastName + "\", " +
+                "\"birthDate\": \"" + birthDate + "\"" +
+                "}";
+    }
+}